@@ -3,7 +3,9 @@ package com.daniel_montilla.reto_tecnico.controller;
 import com.daniel_montilla.reto_tecnico.dto.CartDTO;
 import com.daniel_montilla.reto_tecnico.dto.CartDTO.CartItemResponse;
 import com.daniel_montilla.reto_tecnico.dto.CartDTO.CartResponse;
+import com.daniel_montilla.reto_tecnico.dto.CartDTO.RemoveResponse;
 import com.daniel_montilla.reto_tecnico.entity.CartItem;
+import com.daniel_montilla.reto_tecnico.entity.Product;
 import com.daniel_montilla.reto_tecnico.service.CartService;
 
 import java.util.Map;
@@ -11,6 +13,7 @@ import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,23 +28,34 @@ public class CartController {
     this.cartService = cartService;
   }
 
+  /**
+   * Answers polls of an unchanged cart, by If-None-Match, with a 304 from the
+   * cart version alone, without reading the cart.
+   */
   @GetMapping("/{clientId}")
-  public ResponseEntity<CartResponse> getCartItems(@PathVariable Long clientId) {
+  public ResponseEntity<CartResponse> getCartItems(@PathVariable Long clientId, WebRequest request) {
+    String etag = cartService.getETagOfClient(clientId);
+    if (request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
 
     var items = cartService.getItemsOfClient(clientId);
 
-    var total = cartService.getTotal(items);
+    var total = cartService.getTotalOfClient(clientId);
 
-    return ResponseEntity.ok(CartResponse.builder()
+    return ResponseEntity.ok().eTag(etag).body(CartResponse.builder()
         .total(total.doubleValue())
         .products(items.stream()
-            .map(item -> CartResponse.Product.builder()
-                .id(item.getProduct().getId())
-                .name(item.getProduct().getName())
-                .sku(item.getProduct().getSku())
-                .price(item.getProduct().getPrice())
-                .quantity(item.getQuantity())
-                .build())
+            .map(item -> {
+              Product product = cartService.productOf(item);
+              return CartResponse.Product.builder()
+                  .id(product.getId())
+                  .name(product.getName())
+                  .sku(product.getSku())
+                  .price(product.getPrice())
+                  .quantity(item.getQuantity())
+                  .build();
+            })
             .toList())
         .build());
   }
@@ -53,33 +67,14 @@ public class CartController {
         body.getProductId(),
         body.getQuantity());
 
-    return ResponseEntity.ok(CartItemResponse.builder()
-        .id(item.getId())
-        .product(CartItemResponse.Product.builder()
-            .id(item.getProduct().getId())
-            .name(item.getProduct().getName())
-            .sku(item.getProduct().getSku())
-            .price(item.getProduct().getPrice())
-            .quantity(item.getQuantity())
-            .build())
-        .build());
+    return ResponseEntity.ok(toItemResponse(item));
   }
 
   @PostMapping("/batch-add")
   public ResponseEntity<List<CartItemResponse>> addItemsToCart(@RequestBody CartDTO.CreateManyRequest body) {
     List<CartItemResponse> items = cartService.addProductsToCart(body.getClientId(),
         body.getProducts().stream().map(product -> Map.entry(product.getId(), product.getQuantity())).toList()).stream()
-        .map(
-            item -> CartItemResponse.builder()
-                .id(item.getId())
-                .product(CartItemResponse.Product.builder()
-                    .id(item.getProduct().getId())
-                    .name(item.getProduct().getName())
-                    .sku(item.getProduct().getSku())
-                    .price(item.getProduct().getPrice())
-                    .quantity(item.getQuantity())
-                    .build())
-                .build())
+        .map(this::toItemResponse)
         .toList();
 
     return ResponseEntity.status(HttpStatus.CREATED).body(items);
@@ -89,21 +84,41 @@ public class CartController {
   public ResponseEntity<Optional<CartItemResponse>> removeItemFromCart(@RequestBody CartDTO.DeleteRequest body) {
     Optional<CartItemResponse> item = cartService.removeProductFromCart(body.getClientId(), body.getProductId(),
         body.getQuantity())
-        .map(cartItem -> CartItemResponse.builder()
-            .id(cartItem.getId())
-            .product(CartItemResponse.Product.builder().id(cartItem.getProduct().getId())
-                .name(cartItem.getProduct().getName())
-                .sku(cartItem.getProduct().getSku())
-                .price(cartItem.getProduct().getPrice())
-                .quantity(cartItem.getQuantity()).build())
-            .build());
+        .map(this::toItemResponse);
 
     return ResponseEntity.ok(item);
   }
 
+  @PostMapping("/batch-remove")
+  public ResponseEntity<RemoveResponse> removeItemsFromCart(@RequestBody CartDTO.DeleteManyRequest body) {
+    CartService.BulkRemoval removal = cartService.removeProductsFromCart(body.getClientId(),
+        body.getProducts().stream().map(product -> Map.entry(product.getId(), product.getQuantity())).toList());
+
+    return ResponseEntity.ok(RemoveResponse.builder()
+        .removed(removal.deleted())
+        .updated(removal.updated())
+        .build());
+  }
+
   @DeleteMapping("/clear/{clientId}")
-  public ResponseEntity<Void> clearCart(@PathVariable Long clientId) {
-    cartService.clearCart(clientId);
-    return ResponseEntity.noContent().build();
+  public ResponseEntity<RemoveResponse> clearCart(@PathVariable Long clientId) {
+    return ResponseEntity.ok(RemoveResponse.builder()
+        .removed(cartService.clearCart(clientId))
+        .build());
+  }
+
+  private CartItemResponse toItemResponse(CartItem item) {
+    Product product = cartService.productOf(item);
+
+    return CartItemResponse.builder()
+        .id(item.getId())
+        .product(CartItemResponse.Product.builder()
+            .id(product.getId())
+            .name(product.getName())
+            .sku(product.getSku())
+            .price(product.getPrice())
+            .quantity(item.getQuantity())
+            .build())
+        .build();
   }
 }
\ No newline at end of file
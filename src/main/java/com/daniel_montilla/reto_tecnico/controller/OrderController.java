@@ -2,11 +2,15 @@ package com.daniel_montilla.reto_tecnico.controller;
 
 import com.daniel_montilla.reto_tecnico.dto.CartDTO;
 import com.daniel_montilla.reto_tecnico.dto.OrderDTO;
+import com.daniel_montilla.reto_tecnico.entity.CartItem;
 import com.daniel_montilla.reto_tecnico.entity.Order;
+import com.daniel_montilla.reto_tecnico.entity.Product;
 import com.daniel_montilla.reto_tecnico.exception.NoItemsInCartException;
 import com.daniel_montilla.reto_tecnico.exception.NotFoundException;
 import com.daniel_montilla.reto_tecnico.exception.TokenizationRejectedException;
+import com.daniel_montilla.reto_tecnico.service.IdempotencyService;
 import com.daniel_montilla.reto_tecnico.service.OrderService;
+import com.daniel_montilla.reto_tecnico.service.ProductCache;
 
 import jakarta.validation.Valid;
 
@@ -25,26 +29,40 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 public class OrderController {
 
   private final OrderService orderService;
+  private final ProductCache productCache;
+  private final IdempotencyService idempotencyService;
 
-  public OrderController(OrderService orderService) {
+  public OrderController(OrderService orderService, ProductCache productCache,
+      IdempotencyService idempotencyService) {
     this.orderService = orderService;
+    this.productCache = productCache;
+    this.idempotencyService = idempotencyService;
   }
 
+  /**
+   * With an Idempotency-Key, retries of the same request get the order placed
+   * by the first one, see {@link IdempotencyService}.
+   */
   @PostMapping("/place")
-  public ResponseEntity<?> placeOrder(@Valid @RequestBody OrderDTO.PlaceRequest body) throws NotFoundException {
+  public ResponseEntity<?> placeOrder(@Valid @RequestBody OrderDTO.PlaceRequest body,
+      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) throws NotFoundException {
+    if (idempotencyKey != null
+        && (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH)) {
+      return ResponseEntity
+          .badRequest()
+          .body(Map.of("error", "Idempotency-Key must be between 1 and 255 characters."));
+    }
+
     try {
-      Order newOrder = orderService.placeOrder(
-          body.getClientId(),
-          Optional.ofNullable(body.getDeliveryAddress()),
-          body.getCreditCardDetails().getCardNumber(),
-          body.getCreditCardDetails().getExpirationDate(),
-          body.getCreditCardDetails().getCvv(),
-          body.getCreditCardDetails().getCardHolderName());
+      Long orderId = idempotencyKey == null
+          ? place(body, Optional.empty())
+          : idempotencyService.placeOnce(idempotencyKey, idempotencyService.fingerprint(body),
+              () -> place(body, Optional.of(idempotencyKey)));
 
       URI location = ServletUriComponentsBuilder
           .fromCurrentContextPath()
           .path("/order/{id}")
-          .buildAndExpand(newOrder.getId())
+          .buildAndExpand(orderId)
           .toUri();
 
       return ResponseEntity.created(location).build();
@@ -60,26 +78,49 @@ public class OrderController {
     }
   }
 
+  private Long place(OrderDTO.PlaceRequest body, Optional<String> idempotencyKey)
+      throws NoItemsInCartException, NotFoundException {
+    Order newOrder = orderService.placeOrder(
+        body.getClientId(),
+        Optional.ofNullable(body.getDeliveryAddress()),
+        body.getCreditCardDetails().getCardNumber(),
+        body.getCreditCardDetails().getExpirationDate(),
+        body.getCreditCardDetails().getCvv(),
+        body.getCreditCardDetails().getCardHolderName(),
+        idempotencyKey);
+
+    return newOrder.getId();
+  }
+
   @GetMapping("/{clientId}")
   public ResponseEntity<List<OrderDTO.OrderItemResponse>> getClientOrders(@PathVariable Long clientId) {
     List<Order> clientOrders = orderService.getOrdersOfClient(clientId);
 
+    // Resolve the products of every order at once instead of one join per item.
+    Map<Long, Product> products = productCache.getAll(clientOrders.stream()
+        .flatMap(order -> order.getCartItems().stream())
+        .map(item -> item.getProduct().getId())
+        .collect(Collectors.toSet()));
+
     List<OrderDTO.OrderItemResponse> response = clientOrders.stream()
-        .map(this::mapOrderToDto)
+        .map(order -> mapOrderToDto(order, products))
         .collect(Collectors.toList());
 
     return ResponseEntity.ok(response);
   }
 
-  private OrderDTO.OrderItemResponse mapOrderToDto(Order order) {
+  private OrderDTO.OrderItemResponse mapOrderToDto(Order order, Map<Long, Product> products) {
     List<CartDTO.CartResponse.Product> cartProducts = order.getCartItems().stream()
-        .map(item -> CartDTO.CartResponse.Product.builder()
-            .id(item.getProduct().getId())
-            .sku(item.getProduct().getSku())
-            .name(item.getProduct().getName())
-            .price(item.getProduct().getPrice())
-            .quantity(item.getQuantity())
-            .build())
+        .map(item -> {
+          Product product = productOf(item, products);
+          return CartDTO.CartResponse.Product.builder()
+              .id(product.getId())
+              .sku(product.getSku())
+              .name(product.getName())
+              .price(product.getPrice())
+              .quantity(item.getQuantity())
+              .build();
+        })
         .collect(Collectors.toList());
 
     CartDTO.CartResponse cartResponse = CartDTO.CartResponse.builder()
@@ -95,4 +136,9 @@ public class OrderController {
         .cart(cartResponse)
         .build();
   }
+
+  private static Product productOf(CartItem item, Map<Long, Product> products) {
+    // Fall back to the association for products deleted after the order.
+    return products.getOrDefault(item.getProduct().getId(), item.getProduct());
+  }
 }
\ No newline at end of file
@@ -2,14 +2,27 @@ package com.daniel_montilla.reto_tecnico.controller;
 
 import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
 import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
 import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.ProductCache;
+import com.daniel_montilla.reto_tecnico.service.ProductCursor;
+import com.daniel_montilla.reto_tecnico.service.ProductExportService;
+import com.daniel_montilla.reto_tecnico.service.ProductFacetIndex;
+import com.daniel_montilla.reto_tecnico.service.ProductImportService;
 import com.daniel_montilla.reto_tecnico.service.ProductService;
+import com.daniel_montilla.reto_tecnico.service.ProductSkuIndex;
+import com.daniel_montilla.reto_tecnico.service.ProductSuggestIndex;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,23 +30,86 @@ import java.util.Optional;
 @RequestMapping("/products")
 public class ProductController {
 
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final ProductRepository productRepository;
   private final ProductService productService;
+  private final ProductCache productCache;
+  private final ProductSuggestIndex productSuggestIndex;
+  private final ProductFacetIndex productFacetIndex;
+  private final ProductSkuIndex productSkuIndex;
+  private final ProductExportService productExportService;
+  private final ProductImportService productImportService;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public ProductController(ProductRepository productRepository, ProductService productService) {
+  public ProductController(ProductRepository productRepository, ProductService productService,
+      ProductCache productCache, ProductSuggestIndex productSuggestIndex, ProductFacetIndex productFacetIndex,
+      ProductSkuIndex productSkuIndex, ProductExportService productExportService,
+      ProductImportService productImportService, ApplicationEventPublisher eventPublisher) {
     this.productRepository = productRepository;
     this.productService = productService;
+    this.productCache = productCache;
+    this.productSuggestIndex = productSuggestIndex;
+    this.productFacetIndex = productFacetIndex;
+    this.productSkuIndex = productSkuIndex;
+    this.productExportService = productExportService;
+    this.productImportService = productImportService;
+    this.eventPublisher = eventPublisher;
   }
 
   @GetMapping
-  public ResponseEntity<List<Product>> getAllProducts() {
-    List<Product> products = productRepository.findAll();
-    return ResponseEntity.ok(products);
+  public ResponseEntity<List<Product>> getAllProducts(
+      @RequestParam(defaultValue = "name") String sortBy,
+      @RequestParam(defaultValue = "asc") String sortOrder,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit) {
+
+    if (!isValidPage(sortBy, sortOrder, limit)) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    ProductCursor after;
+    try {
+      after = cursor == null ? null : ProductCursor.decode(cursor, sortBy);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return toPageResponse(productService.listProducts(sortBy, sortOrder, after, limit));
+  }
+
+  @GetMapping("/export")
+  public void exportProducts(HttpServletResponse response) throws IOException {
+    response.setContentType("application/x-ndjson");
+    response.setCharacterEncoding("UTF-8");
+    productExportService.writeNdjson(response.getOutputStream());
+  }
+
+  @GetMapping("/suggest")
+  public ResponseEntity<List<ProductDTO.Suggestion>> suggestProducts(
+      @RequestParam(defaultValue = "") String prefix,
+      @RequestParam(defaultValue = "10") int limit) {
+    return ResponseEntity.ok(productSuggestIndex.suggest(prefix, limit));
+  }
+
+  @GetMapping("/sku/{sku}")
+  public ResponseEntity<Product> getProductBySku(@PathVariable String sku) {
+    return productSkuIndex.findBySku(sku)
+        .map(ResponseEntity::ok)
+        .orElse(ResponseEntity.notFound().build());
+  }
+
+  @GetMapping("/sku")
+  public ResponseEntity<List<Product>> getProductsBySku(@RequestParam List<String> skus) {
+    if (skus.size() > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(productSkuIndex.findAllBySku(skus));
   }
 
   @GetMapping("/{id}")
   public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-    Optional<Product> product = productRepository.findById(id);
+    Optional<Product> product = productCache.get(id);
     return product.map(ResponseEntity::ok)
         .orElse(ResponseEntity.notFound().build());
   }
@@ -49,6 +125,7 @@ public class ProductController {
         .build();
 
     Product savedProduct = productRepository.save(product);
+    eventPublisher.publishEvent(ProductChangedEvent.saved(savedProduct));
     return ResponseEntity.status(HttpStatus.CREATED).body(savedProduct);
   }
 
@@ -64,9 +141,16 @@ public class ProductController {
             .build())
         .toList());
 
+    eventPublisher.publishEvent(ProductChangedEvent.saved(products));
     return ResponseEntity.status(HttpStatus.CREATED).body(products);
   }
 
+  @PostMapping("/import")
+  public ResponseEntity<ProductDTO.ImportReport> importProducts(
+      @Valid @RequestBody List<ProductDTO.CreateRequest> body) {
+    return ResponseEntity.ok(productImportService.importProducts(body));
+  }
+
   @PutMapping("/{id}")
   public ResponseEntity<Product> updateProduct(@PathVariable Long id,
       @Valid @RequestBody ProductDTO.UpdateRequest body) {
@@ -88,6 +172,7 @@ public class ProductController {
             existingProduct.setQuantity(body.getQuantity());
           }
           Product updatedProduct = productRepository.save(existingProduct);
+          eventPublisher.publishEvent(ProductChangedEvent.saved(updatedProduct));
           return ResponseEntity.ok(updatedProduct);
         })
         .orElse(ResponseEntity.notFound().build());
@@ -98,6 +183,7 @@ public class ProductController {
     return productRepository.findById(id)
         .map(product -> {
           productRepository.delete(product);
+          eventPublisher.publishEvent(ProductChangedEvent.deleted(product));
           return ResponseEntity.noContent().<Void>build();
         })
         .orElse(ResponseEntity.notFound().build());
@@ -108,6 +194,45 @@ public class ProductController {
       @RequestParam(name = "q", required = false) String query,
       @RequestParam(defaultValue = "name") String sortBy,
       @RequestParam(defaultValue = "asc") String sortOrder,
+      @RequestParam(defaultValue = "0") String minStock,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit,
+      @RequestParam(defaultValue = "standard") String mode) {
+
+    int minStockInt;
+    try {
+      minStockInt = Integer.parseInt(minStock);
+      if (minStockInt < 0) {
+        return ResponseEntity.badRequest().build();
+      }
+    } catch (NumberFormatException e) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    if ("fuzzy".equals(mode)) {
+      if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+        return ResponseEntity.badRequest().build();
+      }
+      return ResponseEntity.ok(productService.fuzzySearchProducts(query, minStockInt, limit));
+    }
+
+    if (!"standard".equals(mode) || !isValidPage(sortBy, sortOrder, limit)) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    ProductCursor after;
+    try {
+      after = cursor == null ? null : ProductCursor.decode(cursor, sortBy);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return toPageResponse(productService.searchProducts(query, sortBy, sortOrder, minStockInt, after, limit));
+  }
+
+  @GetMapping("/search/facets")
+  public ResponseEntity<ProductDTO.Facets> searchFacets(
+      @RequestParam(name = "q", required = false) String query,
       @RequestParam(defaultValue = "0") String minStock) {
 
     int minStockInt;
@@ -120,7 +245,31 @@ public class ProductController {
       return ResponseEntity.badRequest().build();
     }
 
-    List<Product> products = productService.searchProducts(query, sortBy, sortOrder, minStockInt);
-    return ResponseEntity.ok(products);
+    return ResponseEntity.ok(productFacetIndex.facets(query, minStockInt));
+  }
+
+  private boolean isValidPage(String sortBy, String sortOrder, int limit) {
+    return ProductCursor.SORTABLE_COLUMNS.contains(sortBy)
+        && ("asc".equalsIgnoreCase(sortOrder) || "desc".equalsIgnoreCase(sortOrder))
+        && limit > 0 && limit <= MAX_PAGE_SIZE;
+  }
+
+  /**
+   * Keeps the body a plain product array and advertises the following page
+   * through the {@code X-Next-Cursor} and {@code Link} headers.
+   */
+  private ResponseEntity<List<Product>> toPageResponse(ProductDTO.Page page) {
+    if (page.getNext() == null) {
+      return ResponseEntity.ok(page.getItems());
+    }
+
+    String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+        .replaceQueryParam("cursor", page.getNext())
+        .toUriString();
+
+    return ResponseEntity.ok()
+        .header("X-Next-Cursor", page.getNext())
+        .header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"")
+        .body(page.getItems());
   }
 }
\ No newline at end of file
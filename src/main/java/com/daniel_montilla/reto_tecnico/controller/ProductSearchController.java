@@ -1,12 +1,15 @@
 package com.daniel_montilla.reto_tecnico.controller;
 
+import com.daniel_montilla.reto_tecnico.dto.ProductSearchDTO;
 import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
 import com.daniel_montilla.reto_tecnico.service.ProductSearchService;
+import com.daniel_montilla.reto_tecnico.service.SearchTrends;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/product_searches")
@@ -19,9 +22,35 @@ public class ProductSearchController {
   }
 
   @GetMapping("/recent")
-  public ResponseEntity<List<ProductSearch>> getRecentSearches() {
-    List<ProductSearch> recentSearches = productSearchService.getRecentSearches();
+  public ResponseEntity<List<ProductSearch>> getRecentSearches(@RequestParam(defaultValue = "10") int limit) {
+    if (limit <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    List<ProductSearch> recentSearches = productSearchService.getRecentSearches(limit);
     return ResponseEntity.ok(recentSearches);
   }
 
+  @GetMapping("/trending")
+  public ResponseEntity<List<ProductSearchDTO.TrendingTerm>> getTrendingSearches(
+      @RequestParam(defaultValue = "1h") String window,
+      @RequestParam(defaultValue = "10") int limit) {
+    Optional<SearchTrends.Window> trendWindow = SearchTrends.Window.of(window);
+
+    if (trendWindow.isEmpty() || limit <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return ResponseEntity.ok(productSearchService.getTrendingSearches(trendWindow.get(), limit));
+  }
+
+  @GetMapping("/top")
+  public ResponseEntity<List<ProductSearchDTO.TermCount>> getTopSearches(
+      @RequestParam(defaultValue = "24") int hours,
+      @RequestParam(defaultValue = "10") int limit) {
+    if (hours <= 0 || limit <= 0) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(productSearchService.getTopSearches(hours, limit));
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.daniel_montilla.reto_tecnico.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+public class ApiLatencyDTO {
+
+  /**
+   * Latency of one route in milliseconds. Percentiles and max cover the recent
+   * window only, count covers every request since startup.
+   */
+  @Data
+  @AllArgsConstructor
+  public static class Route {
+    private String method;
+    private String uri;
+    private long count;
+    private double p50;
+    private double p95;
+    private double p99;
+    private double max;
+  }
+}
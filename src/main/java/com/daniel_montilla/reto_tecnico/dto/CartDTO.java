@@ -72,6 +72,39 @@ public class CartDTO {
     }
   }
 
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class DeleteManyRequest {
+    @NotBlank(message = "Client ID cannot be blank")
+    private Long clientId;
+
+    @NotEmpty(message = "Products list cannot be empty")
+    private List<Product> products;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Product {
+      @NotNull(message = "Product ID cannot be null")
+      private Long id;
+
+      @NotNull(message = "Quantity cannot be null")
+      @Positive(message = "Quantity must be positive")
+      private Integer quantity;
+    }
+  }
+
+  @Data
+  @Builder
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class RemoveResponse {
+    private Integer removed;
+    private Integer updated;
+  }
+
   @Data
   @Builder
   @JsonInclude(JsonInclude.Include.NON_NULL)
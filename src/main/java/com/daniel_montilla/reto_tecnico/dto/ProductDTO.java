@@ -1,6 +1,12 @@
 package com.daniel_montilla.reto_tecnico.dto;
 
+import java.util.List;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+
 import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 
 public class ProductDTO {
@@ -41,4 +47,68 @@ public class ProductDTO {
     @Min(value = 0, message = "Quantity must be greater than or equal to 0")
     private Integer quantity;
   }
+
+  @Data
+  @AllArgsConstructor
+  public static class Page {
+    private List<Product> items;
+
+    /**
+     * Cursor of the following page, null when this is the last one.
+     */
+    private String next;
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class Suggestion {
+    private Long id;
+    private String sku;
+    private String name;
+    private Integer quantity;
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class Facets {
+    private int total;
+    private List<Bucket> price;
+    private List<Bucket> stock;
+
+    /**
+     * Products in [from, to), to is null for the last, open ended bucket.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+      private Double from;
+      private Double to;
+      private int count;
+    }
+  }
+
+  @Data
+  @Builder
+  public static class ImportReport {
+    private int received;
+    private int imported;
+    private int failed;
+    private List<ChunkReport> chunks;
+
+    @Data
+    @Builder
+    public static class ChunkReport {
+      private int index;
+      private int imported;
+      private int failed;
+      private List<Failure> failures;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Failure {
+      private String sku;
+      private String reason;
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.daniel_montilla.reto_tecnico.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+public class ProductSearchDTO {
+
+  @Data
+  @AllArgsConstructor
+  public static class TrendingTerm {
+    private String term;
+
+    /**
+     * Estimated number of searches in the window, may be slightly over-counted.
+     */
+    private long count;
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class TermCount {
+    private String term;
+    private long count;
+  }
+}
\ No newline at end of file
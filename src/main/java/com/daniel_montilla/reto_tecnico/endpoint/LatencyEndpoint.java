@@ -0,0 +1,29 @@
+package com.daniel_montilla.reto_tecnico.endpoint;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.dto.ApiLatencyDTO;
+import com.daniel_montilla.reto_tecnico.service.ApiLatencyService;
+
+/**
+ * {@code /actuator/latency}: p50, p95, p99 and max per route.
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+  private final ApiLatencyService apiLatencyService;
+
+  public LatencyEndpoint(ApiLatencyService apiLatencyService) {
+    this.apiLatencyService = apiLatencyService;
+  }
+
+  @ReadOperation
+  public List<ApiLatencyDTO.Route> routes() {
+    return apiLatencyService.routes();
+  }
+}
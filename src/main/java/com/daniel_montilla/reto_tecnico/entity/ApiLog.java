@@ -25,6 +25,11 @@ public class ApiLog {
   private String endpointUrl;
   private int responseStatus;
 
+  /**
+   * Time spent in the filter chain, excluding writing the cached body back.
+   */
+  private Long durationMs;
+
   @Column(columnDefinition = "TEXT")
   private String requestBody;
 
@@ -15,10 +15,12 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_open_line", columnNames = {
+    "client_id", "product_id", "pending" }))
 public class CartItem {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+  @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +38,15 @@ public class CartItem {
   @Builder.Default
   private Boolean fulfilled = false;
 
+  /**
+   * TRUE while the item is in an open cart and NULL once fulfilled. NULLs never
+   * collide in a unique key, so the key above allows a single open line per
+   * client and product next to any number of fulfilled ones.
+   */
+  @Column(nullable = true)
+  @Builder.Default
+  private Boolean pending = true;
+
   @CreationTimestamp
   @Column(nullable = false, updatable = false)
   private LocalDateTime createdAt;
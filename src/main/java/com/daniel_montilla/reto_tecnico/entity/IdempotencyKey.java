@@ -0,0 +1,41 @@
+package com.daniel_montilla.reto_tecnico.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An Idempotency-Key sent to place an order, claimed before the order is placed
+ * and kept until it expires so retries replay the order instead of placing it
+ * again.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = @Index(columnList = "createdAt"))
+public class IdempotencyKey {
+  @Id
+  private String idempotencyKey;
+
+  /**
+   * Keyed hash of the request that claimed the key, a retry must send the same
+   * request.
+   */
+  @Column(nullable = false)
+  private String fingerprint;
+
+  /**
+   * The order placed, null while it is being placed.
+   */
+  @Column(nullable = true)
+  private Long orderId;
+
+  @Column(nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+}
@@ -11,14 +11,21 @@ import lombok.NoArgsConstructor;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "products")
+@Table(name = "products", uniqueConstraints = @UniqueConstraint(name = Product.SKU_CONSTRAINT, columnNames = "sku"))
 public class Product {
 
+  public static final String SKU_CONSTRAINT = "uk_products_sku";
+
+  /**
+   * Sequence ids with a pooled allocator let Hibernate group inserts into JDBC
+   * batches, which IDENTITY columns prevent.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+  @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
   private Long id;
 
-  @Column(nullable = false, unique = true)
+  @Column(nullable = false)
   private String sku;
 
   @Column(nullable = false)
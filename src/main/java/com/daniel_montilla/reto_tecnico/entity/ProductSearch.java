@@ -2,17 +2,20 @@ package com.daniel_montilla.reto_tecnico.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "product_searches")
+@Table(name = "product_searches", indexes = @Index(columnList = "createdAt"))
 public class ProductSearch {
 
+  /**
+   * Sequence ids so the search log writer can insert in JDBC batches.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_searches_seq")
+  @SequenceGenerator(name = "product_searches_seq", sequenceName = "product_searches_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false)
@@ -24,7 +27,17 @@ public class ProductSearch {
   @Column(nullable = true)
   private String sortOrder;
 
-  @CreationTimestamp
+  /**
+   * When the search ran. Set when it is logged, searches are written later in
+   * batches.
+   */
   @Column(nullable = false, updatable = false)
   private LocalDateTime createdAt;
+
+  @PrePersist
+  void onCreate() {
+    if (createdAt == null) {
+      createdAt = LocalDateTime.now();
+    }
+  }
 }
\ No newline at end of file
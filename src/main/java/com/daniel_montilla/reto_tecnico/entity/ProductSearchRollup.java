@@ -0,0 +1,53 @@
+package com.daniel_montilla.reto_tecnico.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of searches for a normalized term and sort in one time bucket.
+ * Analytics read these instead of the raw product_searches rows, which are
+ * compacted away once rolled up.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_search_rollups", indexes = @Index(columnList = "granularity, bucketStart"))
+public class ProductSearchRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_search_rollups_seq")
+  @SequenceGenerator(name = "product_search_rollups_seq", sequenceName = "product_search_rollups_seq",
+      allocationSize = 50)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private Granularity granularity;
+
+  @Column(nullable = false)
+  private LocalDateTime bucketStart;
+
+  @Column(nullable = false)
+  private String searchTerm;
+
+  @Column(nullable = true)
+  private String sortBy;
+
+  @Column(nullable = true)
+  private String sortOrder;
+
+  @Column(nullable = false)
+  private long searches;
+
+  public enum Granularity {
+    MINUTE,
+    HOUR,
+  }
+}
\ No newline at end of file
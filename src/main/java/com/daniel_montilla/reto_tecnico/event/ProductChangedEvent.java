@@ -0,0 +1,42 @@
+package com.daniel_montilla.reto_tecnico.event;
+
+import java.util.List;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+
+/**
+ * Published whenever products are written so in-memory indexes and caches can
+ * follow the catalog without polling the database.
+ *
+ * @param type     Whether the products were saved (created or updated),
+ *                 deleted, or only had their stock changed.
+ * @param products The products affected by the write, as persisted.
+ */
+public record ProductChangedEvent(Type type, List<Product> products) {
+
+  public enum Type {
+    SAVED,
+    DELETED,
+    /**
+     * Only {@code quantity} changed, as when sold units are taken off the
+     * stock. Listeners that do not read the stock can skip it.
+     */
+    STOCK,
+  }
+
+  public static ProductChangedEvent saved(Product product) {
+    return new ProductChangedEvent(Type.SAVED, List.of(product));
+  }
+
+  public static ProductChangedEvent saved(List<Product> products) {
+    return new ProductChangedEvent(Type.SAVED, List.copyOf(products));
+  }
+
+  public static ProductChangedEvent stock(List<Product> products) {
+    return new ProductChangedEvent(Type.STOCK, List.copyOf(products));
+  }
+
+  public static ProductChangedEvent deleted(Product product) {
+    return new ProductChangedEvent(Type.DELETED, List.of(product));
+  }
+}
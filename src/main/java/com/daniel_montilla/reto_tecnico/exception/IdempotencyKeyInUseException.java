@@ -0,0 +1,11 @@
+package com.daniel_montilla.reto_tecnico.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInUseException extends RuntimeException {
+  public IdempotencyKeyInUseException(String idempotencyKey) {
+    super(String.format("An order with Idempotency-Key %s is still being placed. Retry later.", idempotencyKey));
+  }
+}
@@ -0,0 +1,11 @@
+package com.daniel_montilla.reto_tecnico.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyMismatchException extends RuntimeException {
+  public IdempotencyKeyMismatchException(String idempotencyKey) {
+    super(String.format("Idempotency-Key %s was already used with a different request.", idempotencyKey));
+  }
+}
@@ -0,0 +1,12 @@
+package com.daniel_montilla.reto_tecnico.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+  public InsufficientStockException(Long productId, int requested, int available) {
+    super(String.format("Not enough stock for product %d: requested %d, available %d.", productId, requested,
+        Math.max(available, 0)));
+  }
+}
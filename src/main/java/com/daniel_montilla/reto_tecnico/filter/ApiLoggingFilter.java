@@ -2,6 +2,7 @@
 package com.daniel_montilla.reto_tecnico.filter;
 
 import com.daniel_montilla.reto_tecnico.entity.ApiLog;
+import com.daniel_montilla.reto_tecnico.service.ApiLatencyService;
 import com.daniel_montilla.reto_tecnico.service.ApiLoggingService;
 
 import jakarta.servlet.FilterChain;
@@ -12,12 +13,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 import org.springframework.lang.NonNull;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class ApiLoggingFilter extends OncePerRequestFilter {
@@ -25,6 +28,9 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
   @Autowired
   private ApiLoggingService loggingService;
 
+  @Autowired
+  private ApiLatencyService latencyService;
+
   @Override
   protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
       @NonNull FilterChain filterChain)
@@ -36,8 +42,34 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
       return;
     }
 
+    long startedAt = System.nanoTime();
+
+    // Latency is recorded in finally blocks so requests failing with an
+    // exception are measured too
     if (request.getRequestURI().startsWith("/api-logs")) {
-      filterChain.doFilter(request, response);
+      try {
+        filterChain.doFilter(request, response);
+      } finally {
+        recordLatency(request, startedAt);
+      }
+      return;
+    }
+
+    // Streamed responses have to reach the client as they are written, so only
+    // the request line and status are logged for them
+    if (request.getRequestURI().equals("/products/export")) {
+      long durationNanos;
+      try {
+        filterChain.doFilter(request, response);
+      } finally {
+        durationNanos = recordLatency(request, startedAt);
+      }
+      loggingService.logRequest(ApiLog.builder()
+          .httpMethod(request.getMethod())
+          .endpointUrl(request.getRequestURI())
+          .responseStatus(response.getStatus())
+          .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+          .build());
       return;
     }
 
@@ -46,7 +78,12 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
     ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
 
     // Proceed with the filter chain to execute the endpoint
-    filterChain.doFilter(requestWrapper, responseWrapper);
+    long durationNanos;
+    try {
+      filterChain.doFilter(requestWrapper, responseWrapper);
+    } finally {
+      durationNanos = recordLatency(request, startedAt);
+    }
 
     // Extract details after the endpoint has been processed
     String requestBody = new String(requestWrapper.getContentAsByteArray(), StandardCharsets.UTF_8);
@@ -58,9 +95,23 @@ public class ApiLoggingFilter extends OncePerRequestFilter {
         .responseStatus(response.getStatus())
         .requestBody(requestBody)
         .responseBody(responseBody)
+        .durationMs(TimeUnit.NANOSECONDS.toMillis(durationNanos))
         .build());
 
     // Copy the cached response back to the original response
     responseWrapper.copyBodyToResponse();
   }
+
+  /**
+   * Records the request under its route pattern, requests that never reached a
+   * handler (unknown paths, rejected credentials) share the UNKNOWN route.
+   *
+   * @return How long the request took, in nanoseconds.
+   */
+  private long recordLatency(HttpServletRequest request, long startedAt) {
+    long durationNanos = System.nanoTime() - startedAt;
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    latencyService.record(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN", durationNanos);
+    return durationNanos;
+  }
 }
\ No newline at end of file
@@ -4,15 +4,27 @@ import com.daniel_montilla.reto_tecnico.entity.CartItem;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+  interface OpenCart {
+    Long getClientId();
+
+    LocalDateTime getLastAddedAt();
+  }
+
   /**
    * Finds all cart items for a client by their ID and eagerly fetches the
    * associated Product data.
@@ -34,10 +46,74 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
    */
   Optional<CartItem> findByClientIdAndProductIdAndFulfilledFalse(Long clientId, Long productId);
 
-  void deleteAllByClientId(Long clientId);
+  List<CartItem> findAllByClientIdAndProductIdInAndFulfilledFalse(Long clientId, Collection<Long> productIds);
+
+  @Query("SELECT COALESCE(SUM(c.quantity), 0) FROM CartItem c WHERE c.product.id = :productId AND c.fulfilled = false")
+  long sumOpenQuantityByProductId(Long productId);
+
+  /**
+   * Adds to the quantity of the open cart item of a client and product in a
+   * single statement, so concurrent adds never lose an update.
+   *
+   * @return The number of items updated, 0 if there is no open item yet.
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true, flushAutomatically = true)
+  @Query("UPDATE CartItem c SET c.quantity = c.quantity + :quantity "
+      + "WHERE c.client.id = :clientId AND c.product.id = :productId AND c.fulfilled = false")
+  int incrementQuantity(Long clientId, Long productId, int quantity);
+
+  /**
+   * Reads and write-locks the open cart items of a client, so they cannot
+   * change until the transaction removing them commits.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM CartItem c WHERE c.client.id = :clientId AND c.fulfilled = false")
+  List<CartItem> lockOpenByClientId(Long clientId);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM CartItem c WHERE c.client.id = :clientId AND c.product.id IN :productIds "
+      + "AND c.fulfilled = false")
+  List<CartItem> lockOpenByClientIdAndProductIdIn(Long clientId, Collection<Long> productIds);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM CartItem c WHERE c.client.id IN :clientIds AND c.fulfilled = false")
+  List<CartItem> lockOpenByClientIdIn(Collection<Long> clientIds);
+
+  /**
+   * Deletes the open cart items of a client for several products in a single
+   * statement, after flushing pending changes to the others.
+   *
+   * @return The number of items deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM CartItem c WHERE c.client.id = :clientId AND c.product.id IN :productIds "
+      + "AND c.fulfilled = false")
+  int deleteOpenByClientIdAndProductIdIn(Long clientId, Collection<Long> productIds);
+
+  /**
+   * Deletes the open cart items of several clients in a single statement.
+   *
+   * @return The number of items deleted.
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM CartItem c WHERE c.client.id IN :clientIds AND c.fulfilled = false")
+  int deleteOpenByClientIds(Collection<Long> clientIds);
+
+  /**
+   * Lists every client with an open cart and when it last had an item added.
+   */
+  @Query("SELECT c.client.id AS clientId, MAX(c.createdAt) AS lastAddedAt FROM CartItem c "
+      + "WHERE c.fulfilled = false GROUP BY c.client.id")
+  List<OpenCart> findOpenCarts();
 
   List<CartItem> findAllByClientIdAndFulfilledFalse(Long clientId);
 
+  boolean existsByClientIdAndFulfilledFalse(Long clientId);
+
+  List<CartItem> findAllByClientIdInAndFulfilledFalse(Collection<Long> clientIds);
+
   /**
    * Updates all unfulfilled cart items for a given client to be fulfilled.
    * This is an efficient bulk update operation.
@@ -46,6 +122,6 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
    *                 fulfilled.
    */
   @Modifying
-  @Query("UPDATE CartItem c SET c.fulfilled = true WHERE c.client.id = :clientId AND c.fulfilled = false")
+  @Query("UPDATE CartItem c SET c.fulfilled = true, c.pending = null WHERE c.client.id = :clientId AND c.fulfilled = false")
   void fulfillAllByClientId(Long clientId);
 }
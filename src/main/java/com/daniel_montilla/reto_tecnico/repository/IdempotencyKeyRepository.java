@@ -0,0 +1,67 @@
+package com.daniel_montilla.reto_tecnico.repository;
+
+import com.daniel_montilla.reto_tecnico.entity.IdempotencyKey;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+  /**
+   * Claims a key with a plain INSERT, so a key already claimed is rejected by
+   * the primary key instead of being merged over.
+   *
+   * @throws org.springframework.dao.DataIntegrityViolationException if the key
+   *                                                                 is taken.
+   */
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO idempotency_keys (idempotency_key, fingerprint, created_at) "
+      + "VALUES (:idempotencyKey, :fingerprint, :createdAt)", nativeQuery = true)
+  int claim(String idempotencyKey, String fingerprint, LocalDateTime createdAt);
+
+  /**
+   * Takes over a claim whose placement never recorded an order, as long as no
+   * one else took it over since it was read.
+   *
+   * @return 1 if the claim was taken over, 0 otherwise.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE IdempotencyKey k SET k.createdAt = :createdAt WHERE k.idempotencyKey = :idempotencyKey "
+      + "AND k.orderId IS NULL AND k.createdAt = :claimedAt")
+  int takeOver(String idempotencyKey, LocalDateTime claimedAt, LocalDateTime createdAt);
+
+  /**
+   * Records the order placed for a key. Called in the transaction placing the
+   * order, so both commit or neither does.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE IdempotencyKey k SET k.orderId = :orderId WHERE k.idempotencyKey = :idempotencyKey")
+  int complete(String idempotencyKey, Long orderId);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM IdempotencyKey k WHERE k.idempotencyKey = :idempotencyKey")
+  int release(String idempotencyKey);
+
+  /**
+   * Gives a key back after a failed placement, unless its order was placed
+   * before the failure.
+   */
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM IdempotencyKey k WHERE k.idempotencyKey = :idempotencyKey AND k.orderId IS NULL")
+  int releaseUnplaced(String idempotencyKey);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :before")
+  int deleteCreatedBefore(LocalDateTime before);
+}
@@ -1,10 +1,33 @@
 package com.daniel_montilla.reto_tecnico.repository;
 
 import com.daniel_montilla.reto_tecnico.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+  /**
+   * Reads the catalog in id order, one chunk at a time, without the count query
+   * a {@code Page} would trigger.
+   *
+   * @param id       The last id of the previous chunk, 0 for the first one.
+   * @param pageable The chunk size and ordering.
+   * @return Up to {@code pageable.getPageSize()} products with a greater id.
+   */
+  List<Product> findByIdGreaterThan(Long id, Pageable pageable);
+
+  /**
+   * Returns which of the given SKUs are already taken, so bulk imports can
+   * reject duplicates before they abort a batch.
+   */
+  @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+  List<String> findExistingSkus(Collection<String> skus);
 }
\ No newline at end of file
@@ -4,14 +4,45 @@ import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ProductSearchRepository extends JpaRepository<ProductSearch, Long> {
 
+  interface MinuteCount {
+    String getSearchTerm();
+
+    String getSortBy();
+
+    String getSortOrder();
+
+    LocalDateTime getBucketStart();
+
+    long getSearches();
+  }
+
   @Query("SELECT ps FROM ProductSearch ps ORDER BY ps.createdAt DESC")
   List<ProductSearch> findRecent(Pageable pageable);
+
+  @Query("SELECT MIN(ps.createdAt) FROM ProductSearch ps")
+  LocalDateTime findOldestCreatedAt();
+
+  /**
+   * Counts the searches of [from, to) per raw term, sort and minute, so a
+   * rollup only reads one row per distinct search instead of every search.
+   */
+  @Query("SELECT ps.searchTerm AS searchTerm, ps.sortBy AS sortBy, ps.sortOrder AS sortOrder, "
+      + "truncate(ps.createdAt, minute) AS bucketStart, COUNT(ps) AS searches FROM ProductSearch ps "
+      + "WHERE ps.createdAt >= :from AND ps.createdAt < :to "
+      + "GROUP BY ps.searchTerm, ps.sortBy, ps.sortOrder, truncate(ps.createdAt, minute)")
+  List<MinuteCount> countPerMinute(LocalDateTime from, LocalDateTime to);
+
+  @Modifying
+  @Query("DELETE FROM ProductSearch ps WHERE ps.createdAt < :before")
+  int deleteCreatedBefore(LocalDateTime before);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.daniel_montilla.reto_tecnico.repository;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearchRollup;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductSearchRollupRepository extends JpaRepository<ProductSearchRollup, Long> {
+
+  interface TermCount {
+    String getSearchTerm();
+
+    long getSearches();
+  }
+
+  @Query("SELECT MAX(r.bucketStart) FROM ProductSearchRollup r WHERE r.granularity = :granularity")
+  LocalDateTime findLatestBucketStart(ProductSearchRollup.Granularity granularity);
+
+  List<ProductSearchRollup> findAllByGranularityAndBucketStart(ProductSearchRollup.Granularity granularity,
+      LocalDateTime bucketStart);
+
+  /**
+   * Sums the searches per term of every bucket starting at or after the given
+   * time, most searched first.
+   */
+  @Query("SELECT r.searchTerm AS searchTerm, SUM(r.searches) AS searches FROM ProductSearchRollup r "
+      + "WHERE r.granularity = :granularity AND r.bucketStart >= :since "
+      + "GROUP BY r.searchTerm ORDER BY SUM(r.searches) DESC, r.searchTerm")
+  List<TermCount> findTopTerms(ProductSearchRollup.Granularity granularity, LocalDateTime since, Pageable pageable);
+
+  @Modifying
+  @Query("DELETE FROM ProductSearchRollup r WHERE r.granularity = :granularity AND r.bucketStart < :before")
+  int deleteOlderThan(ProductSearchRollup.Granularity granularity, LocalDateTime before);
+}
\ No newline at end of file
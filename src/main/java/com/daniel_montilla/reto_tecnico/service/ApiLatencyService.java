@@ -0,0 +1,89 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.dto.ApiLatencyDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Per-route request latency. Every (method, route pattern) pair gets its own
+ * {@code api.latency} timer, whose percentiles are tracked client side over a
+ * rolling window, so recording is a lock-free histogram update and the tail of
+ * a single route is not blurred by the rest of the traffic or by status codes.
+ */
+@Service
+public class ApiLatencyService {
+
+  private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+  private record Route(String method, String uri) {
+  }
+
+  private final MeterRegistry meterRegistry;
+  private final Duration window;
+  private final Map<Route, Timer> timers = new ConcurrentHashMap<>();
+
+  public ApiLatencyService(MeterRegistry meterRegistry,
+      @Value("${api.latency.window:2m}") Duration window) {
+    this.meterRegistry = meterRegistry;
+    this.window = window;
+  }
+
+  /**
+   * @param method The HTTP method.
+   * @param uri    The route pattern, never the raw path, to keep the number of
+   *               timers bounded.
+   * @param nanos  How long the request took.
+   */
+  public void record(String method, String uri, long nanos) {
+    timers.computeIfAbsent(new Route(method, uri), this::register).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the latency of every route seen so far, slowest p99 first.
+   */
+  public List<ApiLatencyDTO.Route> routes() {
+    return timers.entrySet().stream()
+        .map(entry -> toRoute(entry.getKey(), entry.getValue()))
+        .sorted(Comparator.comparingDouble(ApiLatencyDTO.Route::getP99).reversed())
+        .toList();
+  }
+
+  private Timer register(Route route) {
+    return Timer.builder("api.latency")
+        .tag("method", route.method())
+        .tag("uri", route.uri())
+        .publishPercentiles(PERCENTILES)
+        .percentilePrecision(2)
+        .distributionStatisticExpiry(window)
+        .register(meterRegistry);
+  }
+
+  private static ApiLatencyDTO.Route toRoute(Route route, Timer timer) {
+    HistogramSnapshot snapshot = timer.takeSnapshot();
+    double[] values = new double[PERCENTILES.length];
+
+    for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        if (percentile.percentile() == PERCENTILES[i]) {
+          values[i] = percentile.value(TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    return new ApiLatencyDTO.Route(route.method(), route.uri(), snapshot.count(), values[0], values[1], values[2],
+        snapshot.max(TimeUnit.MILLISECONDS));
+  }
+}
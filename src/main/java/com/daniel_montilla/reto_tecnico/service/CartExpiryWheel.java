@@ -0,0 +1,153 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+
+/**
+ * Hashed timing wheel of idle carts. Every client with an open cart sits in the
+ * slot of the tick its cart expires on; a touch only records the time, so it
+ * costs the same whatever the number of carts.
+ *
+ * Rescheduling is lazy: when the wheel reaches a slot, clients touched since
+ * they were placed are moved to the slot of their new deadline, and the rest
+ * are handed out as expired. Deadlines more than a turn away just go round
+ * again.
+ *
+ * Seeded on startup from the open carts in {@code cart_items}, taking the last
+ * item added as the last touch.
+ */
+@Component
+public class CartExpiryWheel implements SmartLifecycle {
+
+  private final CartItemRepository cartItemRepository;
+  private final long tickMillis;
+  private final long idleMillis;
+  private final List<Set<Long>> slots;
+  private final Map<Long, Long> touchedAt = new ConcurrentHashMap<>();
+
+  // Last tick processed.
+  private long cursor;
+
+  private volatile boolean running = false;
+
+  public CartExpiryWheel(CartItemRepository cartItemRepository,
+      @Value("${cart.expiry.tick-ms:60000}") long tickMillis,
+      @Value("${cart.expiry.idle-timeout:24h}") Duration idleTimeout,
+      @Value("${cart.expiry.wheel-size:512}") int wheelSize) {
+    this.cartItemRepository = cartItemRepository;
+    this.tickMillis = tickMillis;
+    this.idleMillis = idleTimeout.toMillis();
+    this.slots = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      slots.add(ConcurrentHashMap.newKeySet());
+    }
+    this.cursor = System.currentTimeMillis() / tickMillis;
+  }
+
+  public void touch(Long clientId) {
+    touch(clientId, System.currentTimeMillis());
+  }
+
+  public void touch(Long clientId, long nowMillis) {
+    if (touchedAt.put(clientId, nowMillis) == null) {
+      schedule(clientId, nowMillis + idleMillis);
+    }
+  }
+
+  /**
+   * Stops tracking a cart, after it was emptied or checked out. Its slot entry
+   * is dropped when the wheel reaches it.
+   */
+  public void forget(Long clientId) {
+    touchedAt.remove(clientId);
+  }
+
+  public int size() {
+    return touchedAt.size();
+  }
+
+  public List<Long> advance() {
+    return advance(System.currentTimeMillis());
+  }
+
+  /**
+   * Moves the wheel up to the given time.
+   *
+   * @return The clients whose carts have been idle for the whole timeout. They
+   *         are no longer tracked.
+   */
+  public synchronized List<Long> advance(long nowMillis) {
+    long target = nowMillis / tickMillis;
+    List<Long> expired = new ArrayList<>();
+
+    // After a long pause, one turn visits every slot.
+    long from = Math.max(cursor + 1, target - slots.size() + 1);
+    for (long tick = from; tick <= target; tick++) {
+      Set<Long> slot = slots.get((int) (tick % slots.size()));
+
+      for (Long clientId : List.copyOf(slot)) {
+        slot.remove(clientId);
+
+        Long touched = touchedAt.get(clientId);
+        if (touched == null) {
+          continue;
+        }
+
+        long deadline = touched + idleMillis;
+        if (deadline > nowMillis) {
+          schedule(clientId, deadline);
+        } else if (touchedAt.remove(clientId, touched)) {
+          expired.add(clientId);
+        } else {
+          // Touched while being expired.
+          schedule(clientId, nowMillis + idleMillis);
+        }
+      }
+    }
+
+    cursor = Math.max(cursor, target);
+    return expired;
+  }
+
+  @Override
+  public void start() {
+    for (CartItemRepository.OpenCart cart : cartItemRepository.findOpenCarts()) {
+      touch(cart.getClientId(), cart.getLastAddedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Seeded before the embedded web server starts taking cart changes.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+
+  private void schedule(Long clientId, long deadlineMillis) {
+    long tick = Math.max(deadlineMillis / tickMillis, cursor + 1);
+    slots.get((int) (tick % slots.size())).add(clientId);
+  }
+}
@@ -1,94 +1,568 @@
 package com.daniel_montilla.reto_tecnico.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.daniel_montilla.reto_tecnico.entity.CartItem;
 import com.daniel_montilla.reto_tecnico.entity.Client;
 import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.exception.InsufficientStockException;
 import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
 import com.daniel_montilla.reto_tecnico.repository.ClientRepository;
 import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
 
+import jakarta.transaction.Transactional;
+
 import java.util.Map;
 
 @Service
 public class CartService {
 
+  private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
   private final CartItemRepository cartItemRepository;
   private final ClientRepository clientRepository;
   private final ProductRepository productRepository;
+  private final ProductCache productCache;
+  private final CartTotals cartTotals;
+  private final CartVersions cartVersions;
+  private final InventoryReservationService inventoryReservations;
+  private final CartExpiryWheel expiryWheel;
+  private final TransactionTemplate transactionTemplate;
+  private final int expiryBatchSize;
+
+  /**
+   * Set with {@code cart.engine=memory}, carts are then kept in memory and
+   * written behind instead of going to {@code cart_items} on every call.
+   */
+  private final MemoryCartStore memoryCarts;
 
   public CartService(CartItemRepository cartItemRepository, ClientRepository clientRepository,
-      ProductRepository productRepository) {
+      ProductRepository productRepository, ProductCache productCache, CartTotals cartTotals,
+      CartVersions cartVersions, InventoryReservationService inventoryReservations, CartExpiryWheel expiryWheel,
+      ObjectProvider<MemoryCartStore> memoryCartStore, PlatformTransactionManager transactionManager,
+      @Value("${cart.expiry.batch-size:500}") int expiryBatchSize) {
     this.cartItemRepository = cartItemRepository;
     this.clientRepository = clientRepository;
     this.productRepository = productRepository;
+    this.productCache = productCache;
+    this.cartTotals = cartTotals;
+    this.cartVersions = cartVersions;
+    this.inventoryReservations = inventoryReservations;
+    this.expiryWheel = expiryWheel;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.expiryBatchSize = expiryBatchSize;
+    this.memoryCarts = memoryCartStore.getIfAvailable();
   }
 
+  /**
+   * Loads the open cart items of a client. Products are not joined, they are
+   * resolved through the product cache in one pass, see {@link #productOf}.
+   */
   public List<CartItem> getItemsOfClient(Long clientId) {
-    return cartItemRepository.findAllWithProductByClientIdAndFulfilledFalse(clientId);
+    if (memoryCarts != null) {
+      return memoryCarts.items(clientId);
+    }
+
+    List<CartItem> items = cartItemRepository.findAllByClientIdAndFulfilledFalse(clientId);
+    productCache.getAll(items.stream().map(item -> item.getProduct().getId()).toList());
+    return items;
+  }
+
+  public boolean hasOpenItems(Long clientId) {
+    if (memoryCarts != null) {
+      return !memoryCarts.items(clientId).isEmpty();
+    }
+    return cartItemRepository.existsByClientIdAndFulfilledFalse(clientId);
+  }
+
+  /**
+   * Returns the product of a cart item, reading it from the product cache
+   * unless the association was already loaded.
+   */
+  public Product productOf(CartItem item) {
+    Product product = item.getProduct();
+    if (Hibernate.isInitialized(product)) {
+      return product;
+    }
+    return productCache.get(product.getId()).orElse(product);
   }
 
+  /**
+   * @throws InsufficientStockException if the product does not have the units
+   *                                    available.
+   */
   public CartItem addProductToCart(Long clientId, Long productId, int quantity) {
+    inventoryReservations.reserve(productId, quantity);
+    cartTotals.begin(clientId);
 
-    Client clientRef = clientRepository.getReferenceById(clientId);
-    Product productRef = productRepository.getReferenceById(productId);
+    CartItem item;
+    try {
+      item = addToStore(clientId, productId, quantity);
+    } catch (RuntimeException e) {
+      inventoryReservations.release(productId, quantity);
+      cartTotals.abort(clientId);
+      throw e;
+    }
+
+    totalChanged(clientId, () -> cartTotals.adjust(clientId, Map.of(productId, quantity)));
+    expiryWheel.touch(clientId);
+    changed(clientId);
+    return item;
+  }
 
-    Optional<CartItem> existing = cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(clientId, productId);
+  /**
+   * Upserts the open item of a client and product. The common case, adding to
+   * an item already in the cart, is a single atomic UPDATE. On a miss the item
+   * is inserted, and if a concurrent add inserted it first the unique open line
+   * key rejects the duplicate and the add falls back to the UPDATE.
+   */
+  private CartItem addToStore(Long clientId, Long productId, int quantity) {
+    if (memoryCarts != null) {
+      return memoryCarts.add(clientId, productId, quantity);
+    }
 
-    if (existing.isPresent()) {
-      CartItem existingItem = existing.get();
-      existingItem.setQuantity(existingItem.getQuantity() + quantity);
-      return cartItemRepository.save(existingItem);
+    Optional<CartItem> incremented = increment(clientId, productId, quantity);
+    if (incremented.isPresent()) {
+      return incremented.get();
     }
 
-    CartItem newItem = CartItem.builder()
-        .client(clientRef)
-        .product(productRef)
-        .quantity(quantity)
-        .build();
+    try {
+      return cartItemRepository.save(CartItem.builder()
+          .client(clientRepository.getReferenceById(clientId))
+          .product(productRepository.getReferenceById(productId))
+          .quantity(quantity)
+          .build());
+    } catch (DataIntegrityViolationException e) {
+      incremented = increment(clientId, productId, quantity);
+      if (incremented.isPresent()) {
+        return incremented.get();
+      }
+      // Not a duplicate line, the client or the product does not exist.
+      throw e;
+    }
+  }
 
-    return cartItemRepository.save(newItem);
+  /**
+   * Adds to the open item and reads it back in one transaction. The UPDATE
+   * holds the row lock until the commit, so the read always finds the row it
+   * updated, never one a concurrent remove dropped in between.
+   *
+   * @return The updated item, empty if there is no open item yet.
+   */
+  private Optional<CartItem> increment(Long clientId, Long productId, int quantity) {
+    return transactionTemplate.execute(_ -> cartItemRepository.incrementQuantity(clientId, productId, quantity) > 0
+        ? cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(clientId, productId)
+        : Optional.<CartItem>empty());
   }
 
+  /**
+   * Adds several products at once. Repeated products are merged first, then
+   * the open items of those products are read in one query and every insert and
+   * update goes out in a single JDBC batch.
+   *
+   * @return The resulting item of each entry, in the order given.
+   */
+  @Transactional
   public List<CartItem> addProductsToCart(Long clientId, List<Map.Entry<Long, Integer>> items) {
-    return items.stream() // This has to be sequential sinse user may input two of the same product
-        .map(entry -> addProductToCart(clientId, entry.getKey(), entry.getValue()))
-        .toList();
+    if (memoryCarts != null) {
+      return items.stream()
+          .map(entry -> addProductToCart(clientId, entry.getKey(), entry.getValue()))
+          .toList();
+    }
+
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    items.forEach(entry -> quantities.merge(entry.getKey(), entry.getValue(), Integer::sum));
+
+    inventoryReservations.reserveAll(quantities);
+    cartTotals.begin(clientId);
+    totalChanged(clientId, () -> cartTotals.adjust(clientId, quantities));
+
+    Map<Long, CartItem> saved;
+    try {
+      saved = saveAll(clientId, quantities);
+    } catch (RuntimeException e) {
+      inventoryReservations.releaseAll(quantities);
+      throw e;
+    }
+    expiryWheel.touch(clientId);
+    changed(clientId);
+
+    return items.stream().map(entry -> saved.get(entry.getKey())).toList();
   }
 
+  private Map<Long, CartItem> saveAll(Long clientId, Map<Long, Integer> quantities) {
+    Map<Long, CartItem> existing = new HashMap<>();
+    for (CartItem item : cartItemRepository.findAllByClientIdAndProductIdInAndFulfilledFalse(clientId,
+        quantities.keySet())) {
+      existing.putIfAbsent(item.getProduct().getId(), item);
+    }
+
+    Client clientRef = clientRepository.getReferenceById(clientId);
+    List<CartItem> changed = new ArrayList<>(quantities.size());
+
+    quantities.forEach((productId, quantity) -> {
+      CartItem item = existing.get(productId);
+      if (item != null) {
+        item.setQuantity(item.getQuantity() + quantity);
+        changed.add(item);
+      } else {
+        changed.add(CartItem.builder()
+            .client(clientRef)
+            .product(productRepository.getReferenceById(productId))
+            .quantity(quantity)
+            .build());
+      }
+    });
+
+    Map<Long, CartItem> saved = new HashMap<>();
+    for (CartItem item : cartItemRepository.saveAll(changed)) {
+      saved.put(item.getProduct().getId(), item);
+    }
+    // Surface constraint violations here, while the reservations can be undone.
+    cartItemRepository.flush();
+    return saved;
+  }
+
+  /**
+   * Removes units of a product from the cart. The item is locked until the
+   * removal commits, so concurrent removes and adds queue behind it, and only
+   * the units actually taken out are released once the write went through.
+   */
+  @Transactional
   public Optional<CartItem> removeProductFromCart(Long clientId, Long productId, int quantity) {
-    Optional<CartItem> existing = cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(clientId, productId);
+    Map<Long, Integer> moved = new HashMap<>();
+    cartTotals.begin(clientId);
+    totalChanged(clientId, () -> cartTotals.adjust(clientId, moved));
 
-    if (existing.isEmpty()) {
-      return Optional.empty();
+    if (memoryCarts != null) {
+      MemoryCartStore.Removal removal = memoryCarts.remove(clientId, productId, quantity);
+      removed(clientId, productId, removal.removed(), moved);
+      changed(clientId);
+      return removal.item();
     }
 
-    CartItem item = existing.get();
+    List<CartItem> locked = cartItemRepository.lockOpenByClientIdAndProductIdIn(clientId, List.of(productId));
+    if (locked.isEmpty()) {
+      return Optional.empty();
+    }
 
-    var newQuantity = item.getQuantity() - quantity;
+    CartItem item = locked.get(0);
+    int released = Math.min(quantity, item.getQuantity());
+    Optional<CartItem> left;
 
-    if (newQuantity <= 0) {
+    if (item.getQuantity() <= quantity) {
+      // Already locked and managed, deleting the entity keeps the context in step.
       cartItemRepository.delete(item);
-      return Optional.empty();
+      left = Optional.empty();
+    } else {
+      item.setQuantity(item.getQuantity() - quantity);
+      left = Optional.of(item);
     }
+    cartItemRepository.flush();
 
-    item.setQuantity(newQuantity);
-    CartItem updatedItem = cartItemRepository.save(item);
-    return Optional.of(updatedItem);
+    removed(clientId, productId, released, moved);
+    changed(clientId);
+    return left;
   }
 
-  public void clearCart(Long clientId) {
-    cartItemRepository.deleteAllByClientId(clientId);
+  /**
+   * Outcome of removing several products at once.
+   *
+   * @param deleted Items dropped from the cart.
+   * @param updated Items left with a lower quantity.
+   */
+  public record BulkRemoval(int deleted, int updated) {
+  }
+
+  /**
+   * Removes several products at once. Repeated products are merged first, then
+   * the affected items are locked in one query, emptied items are dropped in a
+   * single DELETE and the rest go out in one JDBC batch of updates.
+   */
+  @Transactional
+  public BulkRemoval removeProductsFromCart(Long clientId, List<Map.Entry<Long, Integer>> items) {
+    Map<Long, Integer> quantities = new LinkedHashMap<>();
+    items.forEach(entry -> quantities.merge(entry.getKey(), entry.getValue(), Integer::sum));
+
+    int deleted = 0;
+    int updated = 0;
+
+    Map<Long, Integer> moved = new HashMap<>();
+    cartTotals.begin(clientId);
+    totalChanged(clientId, () -> cartTotals.adjust(clientId, moved));
+
+    if (memoryCarts != null) {
+      for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+        MemoryCartStore.Removal removal = memoryCarts.remove(clientId, entry.getKey(), entry.getValue());
+        if (removal.removed() == 0) {
+          continue;
+        }
+        removed(clientId, entry.getKey(), removal.removed(), moved);
+        if (removal.item().isPresent()) {
+          updated++;
+        } else {
+          deleted++;
+        }
+      }
+      changed(clientId);
+      return new BulkRemoval(deleted, updated);
+    }
+
+    Map<Long, Integer> released = new HashMap<>();
+    List<Long> emptied = new ArrayList<>();
+
+    for (CartItem item : cartItemRepository.lockOpenByClientIdAndProductIdIn(clientId, quantities.keySet())) {
+      Long productId = item.getProduct().getId();
+      int quantity = quantities.get(productId);
+
+      released.put(productId, Math.min(quantity, item.getQuantity()));
+      if (item.getQuantity() <= quantity) {
+        emptied.add(productId);
+      } else {
+        item.setQuantity(item.getQuantity() - quantity);
+        updated++;
+      }
+    }
+
+    if (!emptied.isEmpty()) {
+      deleted = cartItemRepository.deleteOpenByClientIdAndProductIdIn(clientId, emptied);
+    }
+    cartItemRepository.flush();
+
+    released.forEach((productId, quantity) -> removed(clientId, productId, quantity, moved));
+    changed(clientId);
+    return new BulkRemoval(deleted, updated);
+  }
+
+  /**
+   * Empties the open cart of a client with a single DELETE, its items are only
+   * read, and locked, to give their stock back.
+   *
+   * @return The number of items removed.
+   */
+  @Transactional
+  public int clearCart(Long clientId) {
+    cartTotals.begin(clientId);
+    totalChanged(clientId, () -> cartTotals.reset(clientId));
+
+    int cleared;
+    if (memoryCarts != null) {
+      Map<Long, Integer> quantities = memoryCarts.clear(clientId);
+      inventoryReservations.releaseAll(quantities);
+      cleared = quantities.size();
+    } else {
+      List<CartItem> items = cartItemRepository.lockOpenByClientId(clientId);
+      cleared = items.isEmpty() ? 0 : cartItemRepository.deleteOpenByClientIds(List.of(clientId));
+      inventoryReservations.releaseAll(quantitiesOf(items));
+    }
+    expiryWheel.forget(clientId);
+    changed(clientId);
+    return cleared;
+  }
+
+  @Scheduled(fixedDelayString = "${cart.expiry.tick-ms:60000}")
+  public void expireIdleCarts() {
+    List<Long> expired = expiryWheel.advance();
+    for (int from = 0; from < expired.size(); from += expiryBatchSize) {
+      expireCarts(expired.subList(from, Math.min(from + expiryBatchSize, expired.size())));
+    }
+  }
+
+  /**
+   * Empties the carts of clients that left them idle, one DELETE for all of
+   * them, and gives their stock back. The items are locked and deleted by id in
+   * one transaction, so an item added meanwhile is either waited for and
+   * expired with the rest or kept along with its reservation.
+   *
+   * @return The number of cart items dropped.
+   */
+  public int expireCarts(List<Long> clientIds) {
+    if (clientIds.isEmpty()) {
+      return 0;
+    }
+
+    int expired = 0;
+    if (memoryCarts != null) {
+      for (Long clientId : clientIds) {
+        Map<Long, Integer> cleared = memoryCarts.clear(clientId);
+        inventoryReservations.releaseAll(cleared);
+        expired += cleared.size();
+      }
+    } else {
+      List<CartItem> items = transactionTemplate.execute(_ -> {
+        List<CartItem> locked = cartItemRepository.lockOpenByClientIdIn(clientIds);
+        if (!locked.isEmpty()) {
+          cartItemRepository.deleteAllByIdInBatch(locked.stream().map(CartItem::getId).toList());
+        }
+        return locked;
+      });
+      expired = items.size();
+      inventoryReservations.releaseAll(quantitiesOf(items));
+    }
+    clientIds.forEach(cartTotals::invalidate);
+    clientIds.forEach(this::changed);
+
+    logger.info("Expired the idle carts of {} clients, {} items dropped", clientIds.size(), expired);
+    return expired;
+  }
+
+  /**
+   * Called by the transaction placing an order once it fulfilled the cart
+   * items. When it commits their reservations become sales and the cart total
+   * starts over.
+   */
+  public void completeCheckout(Long clientId, List<CartItem> items) {
+    Map<Long, Integer> quantities = quantitiesOf(items);
+    Runnable complete = () -> {
+      inventoryReservations.commit(quantities);
+      cartTotals.invalidate(clientId);
+      expiryWheel.forget(clientId);
+      cartVersions.bump(clientId);
+    };
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      complete.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        complete.run();
+      }
+    });
+  }
+
+  /**
+   * Bumps the version of a cart. Inside a transaction it is bumped again after
+   * the commit, so a tag read along with the uncommitted cart goes stale.
+   */
+  private void changed(Long clientId) {
+    cartVersions.bump(clientId);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        cartVersions.bump(clientId);
+      }
+    });
+  }
+
+  /**
+   * Ends a change of the cart total begun with {@link CartTotals#begin}. Inside
+   * a transaction it ends once the transaction completes, committed it runs
+   * the update given, rolled back the total is left as it was.
+   */
+  private void totalChanged(Long clientId, Runnable committed) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      committed.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          committed.run();
+        } else {
+          cartTotals.abort(clientId);
+        }
+      }
+    });
+  }
+
+  /**
+   * Gives back the stock of units removed and records them in the units the
+   * cart total moves by.
+   */
+  private void removed(Long clientId, Long productId, int quantity, Map<Long, Integer> moved) {
+    inventoryReservations.release(productId, quantity);
+    moved.merge(productId, -quantity, Integer::sum);
+    expiryWheel.touch(clientId);
+  }
+
+  private static Map<Long, Integer> quantitiesOf(List<CartItem> items) {
+    Map<Long, Integer> quantities = new HashMap<>();
+    items.forEach(item -> quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum));
+    return quantities;
+  }
+
+  /**
+   * Makes sure {@code cart_items} holds the open cart of the client before an
+   * order reads it. Must run in the transaction placing the order.
+   */
+  public void flushForCheckout(Long clientId) {
+    if (memoryCarts != null) {
+      memoryCarts.flushForCheckout(clientId);
+    }
+  }
+
+  /**
+   * Returns the ETag of the client's open cart, see {@link CartVersions}.
+   */
+  public String getETagOfClient(Long clientId) {
+    return cartVersions.etag(clientId);
+  }
+
+  /**
+   * Returns the total of the client's open cart from its running total, see
+   * {@link CartTotals}.
+   */
+  public BigDecimal getTotalOfClient(Long clientId) {
+    return BigDecimal.valueOf(cartTotals.get(clientId, this::computeTotal), 2);
+  }
+
+  /**
+   * Consistency check: recomputes the running total of a cart from its items
+   * and replaces it, see {@link CartTotals#rebuild}.
+   *
+   * @return The rebuilt total.
+   */
+  public BigDecimal rebuildTotal(Long clientId) {
+    return BigDecimal.valueOf(cartTotals.rebuild(clientId, this::computeTotal), 2);
+  }
+
+  /**
+   * Runs the consistency check of {@link #rebuildTotal} over every cart whose
+   * total is built.
+   */
+  @Scheduled(fixedDelayString = "${cart.totals.check-interval-ms:600000}")
+  public void checkTotals() {
+    cartTotals.built().forEach(this::rebuildTotal);
+  }
+
+  private long computeTotal(Long clientId) {
+    long total = 0;
+    for (CartItem item : getItemsOfClient(clientId)) {
+      total += item.getQuantity() * CartTotals.toMinorUnits(productOf(item).getPrice());
+    }
+    return total;
   }
 
   public BigDecimal getTotal(List<CartItem> cartItems) {
     return cartItems.stream()
-        .map(item -> BigDecimal.valueOf(item.getQuantity()).multiply(BigDecimal.valueOf(item.getProduct().getPrice())))
+        .map(item -> BigDecimal.valueOf(item.getQuantity()).multiply(BigDecimal.valueOf(productOf(item).getPrice())))
         .reduce(BigDecimal.ZERO, BigDecimal::add);
   }
 }
\ No newline at end of file
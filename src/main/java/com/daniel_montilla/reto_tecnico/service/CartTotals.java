@@ -0,0 +1,218 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * Running total of every open cart, in minor currency units (cents). Totals are
+ * built from the cart once, then moved by each add, remove and clear, so
+ * reading one is a map lookup.
+ *
+ * A change of a cart is begun before it is written and ended once it commits,
+ * or rolled back, and only then moves the total. While a change is in flight
+ * the total is built on every read, from what the reader sees of the cart. A
+ * total built while a change of its cart was in flight, or begun or ended, is
+ * returned but not kept, as it may or may not hold that change.
+ *
+ * A product write may change its price, so it drops every total and they are
+ * rebuilt on their next read.
+ */
+@Component
+public class CartTotals {
+
+  private static final Logger logger = LoggerFactory.getLogger(CartTotals.class);
+
+  private record Total(long cents, long builtAt) {
+  }
+
+  /**
+   * Guarded by the map, every write goes through a compute of its client.
+   */
+  private static final class Cart {
+    /** Changes begun and not ended yet. */
+    volatile int pending;
+    /** Clock reading of the last change begun or ended. */
+    long changedAt;
+    volatile Total total;
+  }
+
+  private final ProductCache productCache;
+  private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  /** Totals built before this clock reading are stale. */
+  private volatile long droppedAt;
+
+  public CartTotals(ProductCache productCache) {
+    this.productCache = productCache;
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    // Totals only depend on prices.
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    droppedAt = clock.incrementAndGet();
+  }
+
+  /**
+   * Returns the total of a client's cart, building it on a miss.
+   *
+   * @param rebuild Computes the total from the cart items.
+   */
+  public long get(Long clientId, ToLongFunction<Long> rebuild) {
+    Cart cart = carts.get(clientId);
+    Total total = cart != null && cart.pending == 0 ? current(cart) : null;
+    return total != null ? total.cents() : build(clientId, rebuild);
+  }
+
+  /**
+   * Builds the total of a client's cart again, replacing the one kept unless
+   * a change of the cart raced it.
+   *
+   * @param rebuild Computes the total from the cart items.
+   */
+  public long rebuild(Long clientId, ToLongFunction<Long> rebuild) {
+    return build(clientId, rebuild);
+  }
+
+  /**
+   * Clients whose cart total is built.
+   */
+  public List<Long> built() {
+    return carts.entrySet().stream()
+        .filter(entry -> current(entry.getValue()) != null)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  /**
+   * Begins a change of a client's cart, to be called before it is written and
+   * followed by one of {@link #adjust}, {@link #reset} or {@link #abort}.
+   */
+  public void begin(Long clientId) {
+    carts.compute(clientId, (_, cart) -> {
+      Cart begun = cart != null ? cart : new Cart();
+      begun.pending++;
+      begun.changedAt = clock.incrementAndGet();
+      return begun;
+    });
+  }
+
+  /**
+   * Ends a change that committed, moving the total by the change of quantity
+   * of each product.
+   */
+  public void adjust(Long clientId, Map<Long, Integer> quantities) {
+    long cents = 0;
+    for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+      Product product = productCache.get(entry.getKey()).orElse(null);
+      if (product == null) {
+        end(clientId, null);
+        return;
+      }
+      cents += entry.getValue() * toMinorUnits(product.getPrice());
+    }
+
+    long moved = cents;
+    end(clientId, total -> total + moved);
+  }
+
+  /**
+   * Ends a change that committed and emptied the cart. A change still in flight
+   * may have written before or after it, so then the total is dropped instead.
+   */
+  public void reset(Long clientId) {
+    carts.computeIfPresent(clientId, (_, cart) -> {
+      ended(cart);
+      cart.total = cart.pending == 0 ? new Total(0, cart.changedAt) : null;
+      return cart;
+    });
+  }
+
+  /**
+   * Ends a change that was rolled back, the total is left as it was.
+   */
+  public void abort(Long clientId) {
+    end(clientId, LongUnaryOperator.identity());
+  }
+
+  /**
+   * Drops the total of a cart changed outside of {@link #begin}, once the
+   * change committed.
+   */
+  public void invalidate(Long clientId) {
+    carts.computeIfPresent(clientId, (_, cart) -> {
+      cart.changedAt = clock.incrementAndGet();
+      cart.total = null;
+      return cart;
+    });
+  }
+
+  public static long toMinorUnits(double price) {
+    return Math.round(price * 100);
+  }
+
+  /**
+   * @param move Applied to the total if built, null drops it.
+   */
+  private void end(Long clientId, LongUnaryOperator move) {
+    carts.computeIfPresent(clientId, (_, cart) -> {
+      ended(cart);
+      Total total = current(cart);
+      if (total != null) {
+        cart.total = move != null ? new Total(move.applyAsLong(total.cents()), total.builtAt()) : null;
+      }
+      return cart;
+    });
+  }
+
+  private void ended(Cart cart) {
+    cart.pending--;
+    cart.changedAt = clock.incrementAndGet();
+  }
+
+  /**
+   * Computes a total and keeps it unless a change of the cart, or a product
+   * write, may have raced the computation.
+   */
+  private long build(Long clientId, ToLongFunction<Long> rebuild) {
+    long startedAt = clock.get();
+    long built = rebuild.applyAsLong(clientId);
+
+    carts.compute(clientId, (_, cart) -> {
+      Cart kept = cart != null ? cart : new Cart();
+      if (kept.pending > 0 || kept.changedAt > startedAt || droppedAt > startedAt) {
+        return kept;
+      }
+
+      Total previous = current(kept);
+      if (previous != null && previous.cents() != built) {
+        logger.warn("Cart total of client {} was off by {} cents, rebuilt", clientId, built - previous.cents());
+      }
+      kept.total = new Total(built, startedAt);
+      return kept;
+    });
+    return built;
+  }
+
+  private Total current(Cart cart) {
+    if (cart == null) {
+      return null;
+    }
+    Total total = cart.total;
+    return total != null && total.builtAt() >= droppedAt ? total : null;
+  }
+}
@@ -0,0 +1,51 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * Version of every cart, bumped by each change to it, so a client polling its
+ * cart can be told nothing changed without reading {@code cart_items}.
+ *
+ * The cart response also carries product names and prices, so any product
+ * write other than a stock change moves a global generation that is part of
+ * every tag. Tags also carry a
+ * random epoch, versions start over on every restart and must not match tags
+ * handed out before it.
+ */
+@Component
+public class CartVersions {
+
+  private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+  private final AtomicLong productGeneration = new AtomicLong();
+  private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    // The cart response does not show the stock of its products.
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    productGeneration.incrementAndGet();
+  }
+
+  public void bump(Long clientId) {
+    versions.merge(clientId, 1L, Long::sum);
+  }
+
+  /**
+   * Returns the current tag of a client's cart, quoted as an ETag. Must be read
+   * before the cart itself, so a change racing the read only makes the tag
+   * stale, never the content.
+   */
+  public String etag(Long clientId) {
+    return "\"" + epoch + "-" + productGeneration.get() + "-" + versions.getOrDefault(clientId, 0L) + "\"";
+  }
+}
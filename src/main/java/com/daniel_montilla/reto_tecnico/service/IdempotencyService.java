@@ -0,0 +1,259 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.IdempotencyKey;
+import com.daniel_montilla.reto_tecnico.exception.IdempotencyKeyInUseException;
+import com.daniel_montilla.reto_tecnico.exception.IdempotencyKeyMismatchException;
+import com.daniel_montilla.reto_tecnico.exception.NoItemsInCartException;
+import com.daniel_montilla.reto_tecnico.exception.NotFoundException;
+import com.daniel_montilla.reto_tecnico.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Places each order at most once per Idempotency-Key.
+ *
+ * A key is claimed with a row in {@code idempotency_keys} before its order is
+ * placed and gets the order id in the transaction placing the order, so a
+ * retry, even on another instance, replays the order. Rows expire after the
+ * TTL and are purged on a schedule. Keys placed here are also kept in a
+ * bounded LRU in front of the table, and retries arriving while their key is
+ * still being placed here wait for that placement instead of running another.
+ *
+ * A placement that fails before its order commits gives its key back, nothing
+ * was ordered and the request can be retried as is. A claim left without an
+ * order by an instance that died while placing it can be taken over once its
+ * lease, longer than any placement, has passed.
+ */
+@Service
+public class IdempotencyService {
+
+  private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+  public static final int MAX_KEY_LENGTH = 255;
+
+  @FunctionalInterface
+  public interface Placement {
+    /**
+     * Places the order and records its id against the key, see
+     * {@link IdempotencyKeyRepository#complete}, in the same transaction.
+     *
+     * @return The id of the order placed.
+     */
+    Long place() throws NoItemsInCartException, NotFoundException;
+  }
+
+  private record Placed(String fingerprint, Long orderId, LocalDateTime createdAt) {
+  }
+
+  private record InFlight(String fingerprint, CompletableFuture<Long> orderId) {
+  }
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final TokenizationService tokenizationService;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final Duration lease;
+
+  private final Map<String, Placed> placed;
+  private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+  public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+      TokenizationService tokenizationService, ObjectMapper objectMapper,
+      @Value("${order.idempotency.ttl:24h}") Duration ttl,
+      @Value("${order.idempotency.lease:1m}") Duration lease,
+      @Value("${order.idempotency.cache.max-entries:10000}") int maxEntries) {
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
+    this.tokenizationService = tokenizationService;
+    this.objectMapper = objectMapper;
+    this.ttl = ttl;
+    this.lease = lease;
+
+    this.placed = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Placed> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Keyed hash of a request, so card details are never stored in the clear.
+   */
+  public String fingerprint(Object request) {
+    try {
+      return tokenizationService.tokenize(objectMapper.writeValueAsString(request));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Failed to fingerprint the request", e);
+    }
+  }
+
+  /**
+   * Places an order for a key, or returns the order already placed for it.
+   *
+   * @throws IdempotencyKeyMismatchException if the key was used with another
+   *                                         request.
+   * @throws IdempotencyKeyInUseException    if another instance is placing the
+   *                                         key.
+   */
+  public Long placeOnce(String idempotencyKey, String fingerprint, Placement placement)
+      throws NoItemsInCartException, NotFoundException {
+
+    Optional<Placed> cached = cached(idempotencyKey);
+    if (cached.isPresent()) {
+      return replay(idempotencyKey, fingerprint, cached.get().fingerprint(), cached.get().orderId());
+    }
+
+    InFlight own = new InFlight(fingerprint, new CompletableFuture<>());
+    InFlight running = inFlight.putIfAbsent(idempotencyKey, own);
+    if (running != null) {
+      checkFingerprint(idempotencyKey, fingerprint, running.fingerprint());
+      logger.info("Waiting for the order in flight with Idempotency-Key {}", idempotencyKey);
+      return await(running.orderId());
+    }
+
+    try {
+      Long orderId = placeClaimed(idempotencyKey, fingerprint, placement);
+      own.orderId().complete(orderId);
+      return orderId;
+    } catch (NoItemsInCartException | NotFoundException | RuntimeException e) {
+      own.orderId().completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(idempotencyKey, own);
+    }
+  }
+
+  /**
+   * Drops expired keys from the table.
+   */
+  @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:3600000}")
+  public int purgeExpired() {
+    int purged = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+    if (purged > 0) {
+      logger.info("Purged {} expired idempotency keys", purged);
+    }
+    return purged;
+  }
+
+  private Long placeClaimed(String idempotencyKey, String fingerprint, Placement placement)
+      throws NoItemsInCartException, NotFoundException {
+
+    Optional<IdempotencyKey> stored = idempotencyKeyRepository.findById(idempotencyKey);
+    LocalDateTime createdAt = LocalDateTime.now();
+    boolean claimed = false;
+
+    if (stored.isPresent()) {
+      IdempotencyKey key = stored.get();
+      if (!isExpired(key.getCreatedAt())) {
+        if (key.getOrderId() != null) {
+          remember(idempotencyKey, key.getFingerprint(), key.getOrderId(), key.getCreatedAt());
+          return replay(idempotencyKey, fingerprint, key.getFingerprint(), key.getOrderId());
+        }
+        checkFingerprint(idempotencyKey, fingerprint, key.getFingerprint());
+        if (key.getCreatedAt().plus(lease).isAfter(createdAt)
+            || idempotencyKeyRepository.takeOver(idempotencyKey, key.getCreatedAt(), createdAt) == 0) {
+          throw new IdempotencyKeyInUseException(idempotencyKey);
+        }
+        logger.warn("Took over the abandoned claim of Idempotency-Key {}", idempotencyKey);
+        claimed = true;
+      } else {
+        // Expired but not purged yet, the key can be used again.
+        idempotencyKeyRepository.release(idempotencyKey);
+      }
+    }
+
+    if (!claimed) {
+      try {
+        idempotencyKeyRepository.claim(idempotencyKey, fingerprint, createdAt);
+      } catch (DataIntegrityViolationException e) {
+        // Claimed by another instance since it was read.
+        throw new IdempotencyKeyInUseException(idempotencyKey);
+      }
+    }
+
+    Long orderId;
+    try {
+      orderId = placement.place();
+    } catch (NoItemsInCartException | NotFoundException | RuntimeException e) {
+      // Kept if the order was placed and only a later step failed.
+      idempotencyKeyRepository.releaseUnplaced(idempotencyKey);
+      throw e;
+    }
+
+    remember(idempotencyKey, fingerprint, orderId, createdAt);
+    return orderId;
+  }
+
+  private Optional<Placed> cached(String idempotencyKey) {
+    synchronized (placed) {
+      Placed entry = placed.get(idempotencyKey);
+      if (entry != null && isExpired(entry.createdAt())) {
+        placed.remove(idempotencyKey);
+        return Optional.empty();
+      }
+      return Optional.ofNullable(entry);
+    }
+  }
+
+  private void remember(String idempotencyKey, String fingerprint, Long orderId, LocalDateTime createdAt) {
+    synchronized (placed) {
+      placed.put(idempotencyKey, new Placed(fingerprint, orderId, createdAt));
+    }
+  }
+
+  private boolean isExpired(LocalDateTime createdAt) {
+    return createdAt.plus(ttl).isBefore(LocalDateTime.now());
+  }
+
+  private static Long replay(String idempotencyKey, String fingerprint, String storedFingerprint, Long orderId) {
+    checkFingerprint(idempotencyKey, fingerprint, storedFingerprint);
+    logger.info("Replaying order {} for Idempotency-Key {}", orderId, idempotencyKey);
+    return orderId;
+  }
+
+  private static void checkFingerprint(String idempotencyKey, String fingerprint, String storedFingerprint) {
+    if (!storedFingerprint.equals(fingerprint)) {
+      throw new IdempotencyKeyMismatchException(idempotencyKey);
+    }
+  }
+
+  /**
+   * Waits for the placement in flight and ends the same way it did.
+   */
+  private static Long await(CompletableFuture<Long> orderId) throws NoItemsInCartException, NotFoundException {
+    try {
+      return orderId.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof NoItemsInCartException noItems) {
+        throw noItems;
+      }
+      if (cause instanceof NotFoundException notFound) {
+        throw notFound;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Order placement failed", cause);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.exception.InsufficientStockException;
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Stock held by open carts. Every product has an atomic counter of the units
+ * still available, its stock minus what open carts hold, and carts reserve
+ * from it with a compare-and-set, so taking or releasing a reservation never
+ * locks and never reaches the database.
+ *
+ * A counter is loaded on the first reservation of its product. Units sold by
+ * placed orders stay subtracted from the counter and are queued until a
+ * scheduled batch takes them off {@code products.quantity}. Products saved from
+ * elsewhere move their counter by the change in stock.
+ */
+@Service
+public class InventoryReservationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+
+  private static final class Stock {
+    private final AtomicInteger available;
+
+    // products.quantity the counter is based on, guarded by the stock itself.
+    private int known;
+
+    private Stock(int known, int available) {
+      this.known = known;
+      this.available = new AtomicInteger(available);
+    }
+  }
+
+  private final ProductRepository productRepository;
+  private final CartItemRepository cartItemRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+
+  // Units sold but not yet taken off products.quantity.
+  private final Map<Long, Integer> unreconciled = new ConcurrentHashMap<>();
+
+  private final Counter rejected;
+
+  public InventoryReservationService(ProductRepository productRepository, CartItemRepository cartItemRepository,
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+    this.productRepository = productRepository;
+    this.cartItemRepository = cartItemRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+
+    this.rejected = Counter.builder("inventory.reservations.rejected").register(meterRegistry);
+    Gauge.builder("inventory.reservations.unreconciled", unreconciled, Map::size).register(meterRegistry);
+  }
+
+  /**
+   * Takes units of a product for a cart. Unknown products are let through, the
+   * cart write rejects them.
+   *
+   * @throws InsufficientStockException if fewer units are available.
+   */
+  public void reserve(Long productId, int quantity) {
+    Optional<Stock> stock = stockOf(productId);
+    if (stock.isEmpty() || quantity <= 0) {
+      return;
+    }
+
+    AtomicInteger available = stock.get().available;
+    int current;
+    do {
+      current = available.get();
+      if (current < quantity) {
+        rejected.increment();
+        throw new InsufficientStockException(productId, quantity, current);
+      }
+    } while (!available.compareAndSet(current, current - quantity));
+  }
+
+  /**
+   * Reserves several products at once, all or nothing.
+   */
+  public void reserveAll(Map<Long, Integer> quantities) {
+    List<Map.Entry<Long, Integer>> reserved = new ArrayList<>(quantities.size());
+    try {
+      for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+        reserve(entry.getKey(), entry.getValue());
+        reserved.add(entry);
+      }
+    } catch (RuntimeException e) {
+      reserved.forEach(entry -> release(entry.getKey(), entry.getValue()));
+      throw e;
+    }
+  }
+
+  /**
+   * Gives units back, from a removed, cleared or expired cart line.
+   */
+  public void release(Long productId, int quantity) {
+    Stock stock = stocks.get(productId);
+    // Not loaded yet, the counter will be built without the released line.
+    if (stock != null && quantity > 0) {
+      stock.available.addAndGet(quantity);
+    }
+  }
+
+  public void releaseAll(Map<Long, Integer> quantities) {
+    quantities.forEach(this::release);
+  }
+
+  /**
+   * Turns the reservations of a placed order into sales, to be called once the
+   * order is committed. The units stay out of the counters and are queued to be
+   * taken off {@code products.quantity}.
+   */
+  public void commit(Map<Long, Integer> quantities) {
+    quantities.forEach((productId, quantity) -> unreconciled.merge(productId, quantity, Integer::sum));
+  }
+
+  public Optional<Integer> available(Long productId) {
+    return stockOf(productId).map(stock -> stock.available.get());
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    for (Product product : event.products()) {
+      Stock stock = stocks.get(product.getId());
+      if (stock == null) {
+        continue;
+      }
+
+      if (event.type() == ProductChangedEvent.Type.DELETED) {
+        stocks.remove(product.getId());
+        continue;
+      }
+
+      synchronized (stock) {
+        stock.available.addAndGet(product.getQuantity() - stock.known);
+        stock.known = product.getQuantity();
+      }
+    }
+  }
+
+  /**
+   * Takes the units sold since the last run off {@code products.quantity} in one
+   * JDBC batch, then publishes the new stock of the products so caches and
+   * indexes that show it follow.
+   */
+  @Scheduled(fixedDelayString = "${inventory.reservations.reconcile-interval-ms:1000}")
+  public synchronized void reconcile() {
+    Map<Long, Integer> sold = Map.copyOf(unreconciled);
+    if (sold.isEmpty()) {
+      return;
+    }
+
+    List<Long> productIds = List.copyOf(sold.keySet());
+    try {
+      transactionTemplate.executeWithoutResult(_ -> jdbcTemplate.batchUpdate(
+          "UPDATE products SET quantity = quantity - ? WHERE id = ?",
+          productIds.stream().map(id -> new Object[] { sold.get(id), id }).toList()));
+    } catch (RuntimeException e) {
+      logger.error("Failed to reconcile the stock of {} products, retrying on the next run", productIds.size(), e);
+      return;
+    }
+
+    sold.forEach((productId, quantity) -> {
+      Stock stock = stocks.get(productId);
+      if (stock != null) {
+        synchronized (stock) {
+          stock.known -= quantity;
+        }
+      }
+      unreconciled.computeIfPresent(productId, (_, pending) -> pending - quantity == 0 ? null : pending - quantity);
+    });
+
+    eventPublisher.publishEvent(ProductChangedEvent.stock(productRepository.findAllById(productIds)));
+  }
+
+  private Optional<Stock> stockOf(Long productId) {
+    return Optional.ofNullable(stocks.computeIfAbsent(productId, this::load));
+  }
+
+  /**
+   * Builds a counter from the committed stock, less open carts and sales not
+   * reconciled yet. Returns null for unknown products, which are not cached.
+   */
+  private Stock load(Long productId) {
+    return productRepository.findById(productId)
+        .map(product -> new Stock(product.getQuantity(), product.getQuantity()
+            - (int) cartItemRepository.sumOpenQuantityByProductId(productId)
+            - unreconciled.getOrDefault(productId, 0)))
+        .orElse(null);
+  }
+}
@@ -0,0 +1,445 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.daniel_montilla.reto_tecnico.entity.CartItem;
+import com.daniel_montilla.reto_tecnico.entity.Client;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+import com.daniel_montilla.reto_tecnico.repository.ClientRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+
+/**
+ * Cart engine enabled with {@code cart.engine=memory}. Open carts live in a
+ * map keyed by client id and every cart is its own lock, so mutations on
+ * different clients never contend and none of them waits on the database.
+ *
+ * A cart is loaded from {@code cart_items} on first touch. Changed lines are
+ * written behind in one transaction per batch of clients, on every flush
+ * interval and on graceful shutdown. Order placement flushes the cart of its
+ * client synchronously through {@link #flushForCheckout}.
+ *
+ * Items returned by this store are not managed entities and have no id until
+ * their line is written.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.engine", havingValue = "memory")
+public class MemoryCartStore implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemoryCartStore.class);
+
+  private static final class Cart {
+    private final Long clientId;
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private boolean loaded;
+    private boolean evicted;
+    private boolean checkingOut;
+    private boolean clientExists;
+    private long touchedAt;
+
+    private Cart(Long clientId) {
+      this.clientId = clientId;
+    }
+
+    /**
+     * Returns the quantity of every changed line, 0 for removed lines, and marks
+     * them clean.
+     */
+    private Map<Long, Integer> takeChanges() {
+      Map<Long, Integer> changes = new HashMap<>();
+      for (Long productId : dirty) {
+        changes.put(productId, quantities.getOrDefault(productId, 0));
+      }
+      dirty.clear();
+      return changes;
+    }
+  }
+
+  private final CartItemRepository cartItemRepository;
+  private final ClientRepository clientRepository;
+  private final ProductRepository productRepository;
+  private final ProductCache productCache;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final long idleEvictMillis;
+
+  private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+  private final Set<Long> dirtyClients = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Serializes writes, so a checkout never reads the rows of its cart while a
+   * flush is still inserting them. Always taken before a cart lock.
+   */
+  private final ReentrantLock writeLock = new ReentrantLock();
+
+  private volatile boolean running = false;
+
+  public MemoryCartStore(CartItemRepository cartItemRepository, ClientRepository clientRepository,
+      ProductRepository productRepository, ProductCache productCache, PlatformTransactionManager transactionManager,
+      @Value("${cart.memory.flush-batch-size:200}") int batchSize,
+      @Value("${cart.memory.idle-evict-ms:600000}") long idleEvictMillis) {
+    this.cartItemRepository = cartItemRepository;
+    this.clientRepository = clientRepository;
+    this.productRepository = productRepository;
+    this.productCache = productCache;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.idleEvictMillis = idleEvictMillis;
+  }
+
+  public List<CartItem> items(Long clientId) {
+    return withCart(clientId, cart -> {
+      Map<Long, Product> products = productCache.getAll(cart.quantities.keySet());
+      return cart.quantities.entrySet().stream()
+          .map(line -> itemOf(cart, products.get(line.getKey()), line.getKey(), line.getValue()))
+          .toList();
+    });
+  }
+
+  /**
+   * @throws DataIntegrityViolationException if the client or the product does
+   *                                         not exist, as the database engine
+   *                                         would on insert.
+   */
+  public CartItem add(Long clientId, Long productId, int quantity) {
+    Product product = productCache.get(productId)
+        .orElseThrow(() -> new DataIntegrityViolationException("Product " + productId + " does not exist"));
+
+    return withCart(clientId, cart -> {
+      if (!cart.clientExists) {
+        cart.clientExists = !cart.quantities.isEmpty() || clientRepository.existsById(clientId);
+        if (!cart.clientExists) {
+          throw new DataIntegrityViolationException("Client " + clientId + " does not exist");
+        }
+      }
+
+      int newQuantity = cart.quantities.merge(productId, quantity, Integer::sum);
+      markDirty(cart, productId);
+      return itemOf(cart, product, productId, newQuantity);
+    });
+  }
+
+  /**
+   * @param removed The units actually taken out of the cart.
+   * @param item    The line left, empty once it drops to 0.
+   */
+  public record Removal(int removed, Optional<CartItem> item) {
+  }
+
+  public Removal remove(Long clientId, Long productId, int quantity) {
+    return withCart(clientId, cart -> {
+      Integer current = cart.quantities.get(productId);
+      if (current == null) {
+        return new Removal(0, Optional.empty());
+      }
+
+      markDirty(cart, productId);
+      int newQuantity = current - quantity;
+      if (newQuantity <= 0) {
+        cart.quantities.remove(productId);
+        return new Removal(current, Optional.empty());
+      }
+
+      cart.quantities.put(productId, newQuantity);
+      return new Removal(quantity,
+          Optional.of(itemOf(cart, productCache.get(productId).orElse(null), productId, newQuantity)));
+    });
+  }
+
+  /**
+   * @return The quantity of every line removed, by product id.
+   */
+  public Map<Long, Integer> clear(Long clientId) {
+    return withCart(clientId, cart -> {
+      for (Long productId : cart.quantities.keySet()) {
+        markDirty(cart, productId);
+      }
+      Map<Long, Integer> removed = Map.copyOf(cart.quantities);
+      cart.quantities.clear();
+      return removed;
+    });
+  }
+
+  /**
+   * Writes the cart of a client in the caller's transaction, so the order being
+   * placed reads it from {@code cart_items}. Once that transaction commits the
+   * written lines are fulfilled and dropped from the cart; anything added in the
+   * meantime stays as a new open line. On rollback the lines are written again
+   * on the next flush.
+   */
+  public void flushForCheckout(Long clientId) {
+    Cart cart = carts.get(clientId);
+    if (cart == null) {
+      return;
+    }
+
+    Map<Long, Integer> ordered;
+    Map<Long, Integer> changes;
+    writeLock.lock();
+    try {
+      synchronized (cart) {
+        if (!cart.loaded || cart.evicted) {
+          return;
+        }
+        ordered = Map.copyOf(cart.quantities);
+        changes = cart.takeChanges();
+        try {
+          write(Map.of(clientId, changes));
+        } catch (RuntimeException e) {
+          // Nothing to complete, the lines stay dirty for the next flush.
+          redirty(cart, changes);
+          throw e;
+        }
+        cart.checkingOut = true;
+      }
+    } finally {
+      writeLock.unlock();
+    }
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      completeCheckout(cart, ordered, changes, true);
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        completeCheckout(cart, ordered, changes, status == STATUS_COMMITTED);
+      }
+    });
+  }
+
+  @Scheduled(fixedDelayString = "${cart.memory.flush-interval-ms:500}")
+  public void scheduledFlush() {
+    flush();
+    evictIdle(System.currentTimeMillis());
+  }
+
+  /**
+   * Writes every changed cart, one transaction per batch of clients. A failed
+   * batch is kept dirty and retried on the next flush.
+   */
+  public void flush() {
+    writeLock.lock();
+    try {
+      Map<Long, Map<Long, Integer>> batch = new HashMap<>();
+
+      for (Iterator<Long> clients = dirtyClients.iterator(); clients.hasNext();) {
+        Long clientId = clients.next();
+        clients.remove();
+
+        Cart cart = carts.get(clientId);
+        if (cart == null) {
+          continue;
+        }
+        synchronized (cart) {
+          if (cart.checkingOut) {
+            // Written by the checkout, or retried once it completes.
+            continue;
+          }
+          batch.put(clientId, cart.takeChanges());
+        }
+
+        if (batch.size() >= batchSize) {
+          writeBatch(batch);
+          batch = new HashMap<>();
+        }
+      }
+
+      if (!batch.isEmpty()) {
+        writeBatch(batch);
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  public int size() {
+    return carts.size();
+  }
+
+  @Override
+  public void start() {
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    flush();
+    logger.info("Memory cart store stopped");
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stops after the embedded web server, so carts changed while it drains are
+   * still written.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+
+  private <T> T withCart(Long clientId, Function<Cart, T> operation) {
+    while (true) {
+      Cart cart = carts.computeIfAbsent(clientId, Cart::new);
+      synchronized (cart) {
+        if (cart.evicted) {
+          continue;
+        }
+        if (!cart.loaded) {
+          load(cart);
+        }
+        cart.touchedAt = System.currentTimeMillis();
+        return operation.apply(cart);
+      }
+    }
+  }
+
+  private void load(Cart cart) {
+    for (CartItem item : cartItemRepository.findAllByClientIdAndFulfilledFalse(cart.clientId)) {
+      cart.quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+    }
+    cart.loaded = true;
+  }
+
+  private void markDirty(Cart cart, Long productId) {
+    cart.dirty.add(productId);
+    dirtyClients.add(cart.clientId);
+  }
+
+  private void writeBatch(Map<Long, Map<Long, Integer>> batch) {
+    try {
+      transactionTemplate.executeWithoutResult(_ -> write(batch));
+    } catch (RuntimeException e) {
+      logger.error("Failed to write {} carts, retrying on the next flush", batch.size(), e);
+      batch.forEach((clientId, changes) -> redirty(carts.get(clientId), changes));
+    }
+  }
+
+  /**
+   * Applies the changed lines of a batch of carts to their open rows: updates
+   * them, deletes them once their quantity is 0 and inserts missing ones.
+   */
+  private void write(Map<Long, Map<Long, Integer>> batch) {
+    Map<Long, Map<Long, CartItem>> rows = new HashMap<>();
+    for (CartItem row : cartItemRepository.findAllByClientIdInAndFulfilledFalse(batch.keySet())) {
+      rows.computeIfAbsent(row.getClient().getId(), _ -> new HashMap<>())
+          .putIfAbsent(row.getProduct().getId(), row);
+    }
+
+    List<CartItem> saves = new ArrayList<>();
+    List<CartItem> deletes = new ArrayList<>();
+
+    batch.forEach((clientId, changes) -> changes.forEach((productId, quantity) -> {
+      CartItem row = rows.getOrDefault(clientId, Map.of()).get(productId);
+
+      if (quantity == 0) {
+        if (row != null) {
+          deletes.add(row);
+        }
+      } else if (row != null) {
+        row.setQuantity(quantity);
+        saves.add(row);
+      } else {
+        saves.add(CartItem.builder()
+            .client(clientRepository.getReferenceById(clientId))
+            .product(productRepository.getReferenceById(productId))
+            .quantity(quantity)
+            .build());
+      }
+    }));
+
+    cartItemRepository.saveAll(saves);
+    cartItemRepository.deleteAllInBatch(deletes);
+  }
+
+  private void completeCheckout(Cart cart, Map<Long, Integer> ordered, Map<Long, Integer> changes,
+      boolean committed) {
+    synchronized (cart) {
+      cart.checkingOut = false;
+
+      if (!committed) {
+        redirty(cart, changes);
+        return;
+      }
+
+      ordered.forEach((productId, quantity) -> {
+        Integer current = cart.quantities.get(productId);
+        if (current == null) {
+          return;
+        }
+        int rest = current - quantity;
+        if (rest > 0) {
+          cart.quantities.put(productId, rest);
+          markDirty(cart, productId);
+        } else {
+          cart.quantities.remove(productId);
+          cart.dirty.remove(productId);
+        }
+      });
+
+      if (!cart.dirty.isEmpty()) {
+        dirtyClients.add(cart.clientId);
+      }
+    }
+  }
+
+  private void redirty(Cart cart, Map<Long, Integer> changes) {
+    if (cart == null) {
+      return;
+    }
+    synchronized (cart) {
+      changes.keySet().forEach(productId -> markDirty(cart, productId));
+    }
+  }
+
+  private void evictIdle(long nowMillis) {
+    carts.values().removeIf(cart -> {
+      synchronized (cart) {
+        if (cart.checkingOut || !cart.dirty.isEmpty() || nowMillis - cart.touchedAt < idleEvictMillis) {
+          return false;
+        }
+        cart.evicted = true;
+        return true;
+      }
+    });
+  }
+
+  private static CartItem itemOf(Cart cart, Product product, Long productId, int quantity) {
+    return CartItem.builder()
+        .client(Client.builder().id(cart.clientId).build())
+        .product(product != null ? product : Product.builder().id(productId).build())
+        .quantity(quantity)
+        .build();
+  }
+}
@@ -1,9 +1,20 @@
 package com.daniel_montilla.reto_tecnico.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.daniel_montilla.reto_tecnico.entity.Client;
 import com.daniel_montilla.reto_tecnico.entity.CreditCardDetails;
@@ -14,9 +25,10 @@ import com.daniel_montilla.reto_tecnico.exception.TokenizationRejectedException;
 import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
 import com.daniel_montilla.reto_tecnico.repository.ClientRepository;
 import com.daniel_montilla.reto_tecnico.repository.CreditCardDetailsRespository;
+import com.daniel_montilla.reto_tecnico.repository.IdempotencyKeyRepository;
 import com.daniel_montilla.reto_tecnico.repository.OrderRepository;
 
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,20 +41,28 @@ public class OrderCreationService {
   private final ClientRepository clientRepository;
   private final CreditCardDetailsRespository creditCardDetailsRespository;
   private final CartItemRepository cartItemRepository;
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
 
   private final TokenizationService tokenizationService;
   private final CartService cartService;
+  private final TransactionTemplate transactionTemplate;
+
+  // Steps of order placement that run at once.
+  private final ExecutorService pipeline = Executors.newVirtualThreadPerTaskExecutor();
 
   public OrderCreationService(OrderRepository orderRepository, ClientRepository clientRepository,
       CreditCardDetailsRespository creditCardDetailsRespository, CartItemRepository cartItemRepository,
-      TokenizationService tokenizationService, PaymentService paymentService, CartService cartService) {
+      IdempotencyKeyRepository idempotencyKeyRepository, TokenizationService tokenizationService, PaymentService paymentService, CartService cartService,
+      PlatformTransactionManager transactionManager) {
 
     this.orderRepository = orderRepository;
     this.clientRepository = clientRepository;
     this.creditCardDetailsRespository = creditCardDetailsRespository;
     this.cartItemRepository = cartItemRepository;
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
     this.tokenizationService = tokenizationService;
     this.cartService = cartService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   public class CreateOrderReturn {
@@ -59,52 +79,97 @@ public class OrderCreationService {
     }
   }
 
-  @Transactional
+  /**
+   * Places an order in two stages. The independent reads run at once on
+   * virtual threads: tokenizing the card, looking the client up and checking
+   * the cart is not empty. The first of them to fail cancels the others, so an
+   * empty cart or an unknown client never waits for tokenization. Then every
+   * write goes out in one short transaction, no connection is held while
+   * tokenizing. An Idempotency-Key claimed for the order gets its id in that
+   * same transaction, so the key never points at an order that was not placed
+   * nor misses one that was.
+   */
   public CreateOrderReturn createOrder(Long clientId, Optional<String> deliveryAddress, String creditCardNumeber,
-      String expirationDate, String cvv, String creditCardHolderName)
+      String expirationDate, String cvv, String creditCardHolderName, Optional<String> idempotencyKey)
       throws NoItemsInCartException, TokenizationRejectedException, NotFoundException {
 
     logger.info("Attempting to place order for clientId: {}", clientId);
 
-    var token = tokenizationService.tokenizeCard(creditCardNumeber);
+    Future<String> token;
+    Future<Client> client;
+
+    try (var scope = new FailFastScope(pipeline)) {
+      token = scope.fork(() -> tokenizationService.tokenizeCard(creditCardNumeber));
+      client = scope.fork(() -> clientRepository.findById(clientId)
+          .orElseThrow(() -> new NotFoundException("client")));
+      scope.fork(() -> {
+        if (!cartService.hasOpenItems(clientId)) {
+          logger.info("No items in cart for client ID: {}. Throwing NoItemsInCartException.", clientId);
+          throw new NoItemsInCartException();
+        }
+        return null;
+      });
+
+      scope.join();
+    } catch (NoItemsInCartException | NotFoundException | RuntimeException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while placing an order", e);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to place an order", e);
+    }
 
-    logger.info("Card tokenized. Received token: {}", token);
+    logger.info("Card tokenized. Received token: {}", token.resultNow());
 
-    var creditCardDetails = creditCardDetailsRespository.save(CreditCardDetails.builder()
-        .token(token)
+    var creditCardDetails = CreditCardDetails.builder()
+        .token(token.resultNow())
         .creditCardNumber(creditCardNumeber)
         .expirationDate(expirationDate)
         .cvv(cvv)
         .cardHolderName(creditCardHolderName)
-        .build());
+        .build();
 
-    logger.info("Credit card details saved with token: {}", creditCardDetails.getToken());
+    var result = transactionTemplate.execute(
+        _ -> saveOrder(clientId, client.resultNow(), deliveryAddress, creditCardDetails, idempotencyKey));
 
-    var clientOption = clientRepository.findById(clientId);
-
-    if (clientOption.isEmpty()) {
-      throw new NotFoundException("client");
+    // Emptied by a concurrent checkout or clear since it was checked.
+    if (result == null) {
+      throw new NoItemsInCartException();
     }
 
-    var client = clientOption.get();
+    logger.info("Order placed. Cart items fulfilled for client ID: {}", clientId);
 
-    logger.info("Client reference obtained for ID: {}", clientId);
+    return result;
+  }
 
+  /**
+   * Writes the order, in the transaction placing it. The cart is read again
+   * here, it is what the order is made of.
+   *
+   * @return The order placed, or null if the cart is empty by now.
+   */
+  private CreateOrderReturn saveOrder(Long clientId, Client client, Optional<String> deliveryAddress,
+      CreditCardDetails card, Optional<String> idempotencyKey) {
+    cartService.flushForCheckout(clientId);
     var cartItems = cartItemRepository.findAllByClientIdAndFulfilledFalse(clientId);
 
     logger.info("Found {} cart items for client ID: {}", cartItems.size(), clientId);
 
-    if (cartItems.size() <= 0) {
-      logger.info("No items in cart for client ID: {}. Throwing NoItemsInCartException.", clientId);
-      throw new NoItemsInCartException();
+    if (cartItems.isEmpty()) {
+      return null;
     }
 
+    var creditCardDetails = creditCardDetailsRespository.save(card);
+
+    logger.info("Credit card details saved with token: {}", creditCardDetails.getToken());
+
     var total = cartService.getTotal(cartItems);
 
     logger.info("Calculated total price for order: {}", total.doubleValue());
 
     var order = orderRepository.save(Order.builder()
-        .client(client)
+        .client(clientRepository.getReferenceById(clientId))
         .cartItems(cartItems)
         .totalPrice(total)
         .deliveryAddress(deliveryAddress.orElse(client.getAddress()))
@@ -114,13 +179,68 @@ public class OrderCreationService {
 
     logger.info("Order saved with ID: {} and status: {}", order.getId(), order.getStatus());
 
-    cartItemRepository.fulfillAllByClientId(clientId);
+    idempotencyKey.ifPresent(key -> idempotencyKeyRepository.complete(key, order.getId()));
 
-    logger.info("Order placed. Cart items fulfilled for client ID: {}", clientId);
+    cartItemRepository.fulfillAllByClientId(clientId);
+    cartService.completeCheckout(clientId, cartItems);
 
     return new CreateOrderReturn(order, client, creditCardDetails);
   }
 
+  /**
+   * Runs steps on their own virtual threads, like a
+   * {@code StructuredTaskScope.ShutdownOnFailure}: {@link #join()} waits for all
+   * of them or for the first failure, and closing the scope cancels, and
+   * interrupts, whatever is still running.
+   */
+  private static final class FailFastScope implements AutoCloseable {
+    private final ExecutorService executor;
+    private final List<Future<?>> forks = new ArrayList<>();
+    private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+
+    private FailFastScope(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    private <T> Future<T> fork(Callable<T> step) {
+      FutureTask<T> fork = new FutureTask<>(step) {
+        @Override
+        protected void done() {
+          completed.add(this);
+        }
+      };
+      forks.add(fork);
+      executor.execute(fork);
+      return fork;
+    }
+
+    /**
+     * @throws Exception The failure of the first step to fail.
+     */
+    private void join() throws Exception {
+      for (int i = 0; i < forks.size(); i++) {
+        try {
+          completed.take().get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Error error) {
+            throw error;
+          }
+          throw (Exception) e.getCause();
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      forks.forEach(fork -> fork.cancel(true));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pipeline.close();
+  }
+
   public List<Order> getOrdersOfClient(Long clientId) {
     return orderRepository.findAllByClientId(clientId);
   }
@@ -33,12 +33,16 @@ public class OrderService {
     this.paymentService = paymentService;
   }
 
+  /**
+   * @param idempotencyKey The Idempotency-Key claimed for the order, if any, it
+   *                       gets the order id in the transaction placing it.
+   */
   public Order placeOrder(Long clientId, Optional<String> deliveryAddress, String creditCardNumeber,
-      String expirationDate, String cvv, String creditCardHolderName)
+      String expirationDate, String cvv, String creditCardHolderName, Optional<String> idempotencyKey)
       throws NoItemsInCartException, TokenizationRejectedException, NotFoundException {
 
     var result = orderCreationService.createOrder(clientId, deliveryAddress, creditCardNumeber, expirationDate, cvv,
-        creditCardHolderName);
+        creditCardHolderName, idempotencyKey);
 
     logger.info("Payment processing initiated for order ID: {}", result.order.getId());
     paymentService.processPayment(result.client, result.order, result.creditCardDetails);
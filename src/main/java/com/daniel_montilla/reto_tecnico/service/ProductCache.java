@@ -0,0 +1,176 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded read-through cache of product snapshots keyed by id, shared by the
+ * product endpoints and the cart/order mappers. Entries are detached copies and
+ * must be treated as read-only; product writes evict them through
+ * {@link ProductChangedEvent}.
+ *
+ * Hit/miss counts, hit ratio, size and load latency are published as
+ * {@code product.cache.*} meters.
+ */
+@Service
+public class ProductCache {
+
+  private final ProductRepository productRepository;
+  private final Map<Long, Product> entries;
+
+  // Bumped on every invalidation so a load racing with a write is not stored.
+  private final AtomicLong generation = new AtomicLong();
+
+  private final MeterRegistry meterRegistry;
+  private final Counter hits;
+  private final Counter misses;
+  private final Timer loadTimer;
+
+  public ProductCache(ProductRepository productRepository, MeterRegistry meterRegistry,
+      @Value("${product.cache.max-entries:10000}") int maxEntries) {
+    this.productRepository = productRepository;
+
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Product> eldest) {
+        return size() > maxEntries;
+      }
+    };
+
+    this.meterRegistry = meterRegistry;
+    this.hits = Counter.builder("product.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("product.cache.requests").tag("result", "miss").register(meterRegistry);
+    this.loadTimer = Timer.builder("product.cache.load").register(meterRegistry);
+  }
+
+  /**
+   * The gauges hold on to the cache, so they are registered once the cache is
+   * fully constructed.
+   */
+  @PostConstruct
+  public void registerGauges() {
+    Gauge.builder("product.cache.size", this, ProductCache::size).register(meterRegistry);
+    Gauge.builder("product.cache.hit.ratio", this, ProductCache::hitRatio).register(meterRegistry);
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    generation.incrementAndGet();
+    synchronized (entries) {
+      for (Product product : event.products()) {
+        entries.remove(product.getId());
+      }
+    }
+  }
+
+  public Optional<Product> get(Long id) {
+    synchronized (entries) {
+      Product cached = entries.get(id);
+      if (cached != null) {
+        hits.increment();
+        return Optional.of(cached);
+      }
+    }
+
+    misses.increment();
+    long loadGeneration = generation.get();
+    Optional<Product> loaded = loadTimer.record(() -> productRepository.findById(id)).map(ProductCache::snapshot);
+
+    loaded.ifPresent(product -> store(List.of(product), loadGeneration));
+    return loaded;
+  }
+
+  /**
+   * Resolves several products at once, loading every miss with a single query.
+   *
+   * @param ids The product ids.
+   * @return The products found, keyed by id.
+   */
+  public Map<Long, Product> getAll(Collection<Long> ids) {
+    Map<Long, Product> found = new HashMap<>();
+    Set<Long> missing = new LinkedHashSet<>();
+
+    synchronized (entries) {
+      for (Long id : ids) {
+        Product cached = entries.get(id);
+        if (cached != null) {
+          found.put(id, cached);
+        } else {
+          missing.add(id);
+        }
+      }
+    }
+
+    hits.increment(found.size());
+
+    if (missing.isEmpty()) {
+      return found;
+    }
+
+    misses.increment(missing.size());
+    long loadGeneration = generation.get();
+    List<Product> loaded = loadTimer.record(() -> productRepository.findAllById(missing)).stream()
+        .map(ProductCache::snapshot)
+        .toList();
+
+    store(loaded, loadGeneration);
+    for (Product product : loaded) {
+      found.put(product.getId(), product);
+    }
+    return found;
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private double hitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0 : hits.count() / total;
+  }
+
+  private void store(List<Product> products, long loadGeneration) {
+    synchronized (entries) {
+      if (generation.get() != loadGeneration) {
+        return;
+      }
+      for (Product product : products) {
+        entries.put(product.getId(), product);
+      }
+    }
+  }
+
+  private static Product snapshot(Product product) {
+    return Product.builder()
+        .id(product.getId())
+        .sku(product.getSku())
+        .name(product.getName())
+        .description(product.getDescription())
+        .price(product.getPrice())
+        .quantity(product.getQuantity())
+        .build();
+  }
+}
@@ -0,0 +1,94 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Keyset position inside a sorted product listing: the value of the active
+ * sort column and the id of the last product returned, used as a tiebreaker.
+ * Encoded as an opaque URL-safe token for the {@code cursor} query parameter.
+ */
+public record ProductCursor(String sortBy, Object value, long id) {
+
+  public static final Set<String> SORTABLE_COLUMNS = Set.of("name", "price", "quantity");
+
+  public static ProductCursor of(Product product, String sortBy) {
+    Object value = switch (sortBy) {
+      case "name" -> product.getName();
+      case "price" -> product.getPrice();
+      case "quantity" -> product.getQuantity();
+      default -> throw new IllegalArgumentException("Unsupported sort column: " + sortBy);
+    };
+    return new ProductCursor(sortBy, value, product.getId());
+  }
+
+  /**
+   * Parses a token produced by {@link #encode()}.
+   *
+   * @param token  The cursor received from the client.
+   * @param sortBy The sort column of the current request, which must match the
+   *               one the cursor was issued for.
+   * @throws IllegalArgumentException If the token is malformed or belongs to a
+   *                                  different sort column.
+   */
+  public static ProductCursor decode(String token, String sortBy) {
+    String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    String[] parts = raw.split("\n", 3);
+
+    if (parts.length != 3 || !parts[0].equals(sortBy)) {
+      throw new IllegalArgumentException("Cursor does not match the requested sort");
+    }
+
+    long id = Long.parseLong(parts[1]);
+    Object value = switch (sortBy) {
+      case "name" -> parts[2];
+      case "price" -> Double.parseDouble(parts[2]);
+      case "quantity" -> Integer.parseInt(parts[2]);
+      default -> throw new IllegalArgumentException("Unsupported sort column: " + sortBy);
+    };
+    return new ProductCursor(sortBy, value, id);
+  }
+
+  public String encode() {
+    String raw = sortBy + "\n" + id + "\n" + value;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Restricts a listing to the rows strictly after this cursor, so every page
+   * is an index range scan instead of an ever growing offset.
+   */
+  public Specification<Product> after(boolean descending) {
+    return (root, _, criteriaBuilder) -> {
+      Expression<Long> idColumn = root.get("id");
+
+      return switch (sortBy) {
+        case "name" -> keyset(criteriaBuilder, root.<String>get("name"), (String) value, idColumn, descending);
+        case "price" -> keyset(criteriaBuilder, root.<Double>get("price"), (Double) value, idColumn, descending);
+        case "quantity" ->
+          keyset(criteriaBuilder, root.<Integer>get("quantity"), (Integer) value, idColumn, descending);
+        default -> throw new IllegalArgumentException("Unsupported sort column: " + sortBy);
+      };
+    };
+  }
+
+  private <T extends Comparable<? super T>> Predicate keyset(CriteriaBuilder criteriaBuilder, Expression<T> column,
+      T lastValue, Expression<Long> idColumn, boolean descending) {
+    Predicate beyond = descending
+        ? criteriaBuilder.lessThan(column, lastValue)
+        : criteriaBuilder.greaterThan(column, lastValue);
+    Predicate tie = criteriaBuilder.and(
+        criteriaBuilder.equal(column, lastValue),
+        descending ? criteriaBuilder.lessThan(idColumn, id) : criteriaBuilder.greaterThan(idColumn, id));
+    return criteriaBuilder.or(beyond, tie);
+  }
+}
@@ -0,0 +1,78 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@Service
+public class ProductExportService {
+
+  private final ProductRepository productRepository;
+  private final ObjectWriter productWriter;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${product.export.chunk-size:500}")
+  private int chunkSize;
+
+  public ProductExportService(ProductRepository productRepository, ObjectMapper objectMapper) {
+    this.productRepository = productRepository;
+    this.productWriter = objectMapper.writerFor(Product.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Writes the whole catalog as newline delimited JSON, one product per line.
+   * Products are read in fixed-size id-ordered chunks and each chunk is flushed
+   * to the client and dropped from the persistence context before the next one
+   * is loaded, so memory use does not grow with the catalog.
+   *
+   * @param out The response stream.
+   * @return The number of products written.
+   */
+  public long writeNdjson(OutputStream out) throws IOException {
+    long lastId = 0;
+    long written = 0;
+
+    while (true) {
+      List<Product> chunk = productRepository.findByIdGreaterThan(lastId,
+          PageRequest.of(0, chunkSize, Sort.by("id")));
+
+      for (Product product : chunk) {
+        productWriter.writeValue(out, product);
+        out.write('\n');
+      }
+
+      out.flush();
+
+      if (chunk.isEmpty()) {
+        return written;
+      }
+
+      written += chunk.size();
+      lastId = chunk.get(chunk.size() - 1).getId();
+
+      // The request-scoped persistence context would otherwise keep every
+      // exported product reachable until the response completes.
+      entityManager.clear();
+
+      if (chunk.size() < chunkSize) {
+        return written;
+      }
+    }
+  }
+}
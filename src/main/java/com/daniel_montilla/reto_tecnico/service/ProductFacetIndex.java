@@ -0,0 +1,298 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * Column snapshot of product prices and stock kept in primitive arrays, used to
+ * count search results per price range and stock band. Counting walks the
+ * arrays and bumps an int per bucket, no entity or boxed value is created per
+ * product.
+ *
+ * With a search term the matches are marked in a bitset over the slots, one
+ * per query token, straight from the posting lists of the text index and
+ * through a primitive id to slot map. The bitsets are intersected and only
+ * the slots left are counted.
+ */
+@Service
+public class ProductFacetIndex {
+
+  private final ProductTextIndex productTextIndex;
+  private final double[] priceBounds;
+  private final double[] stockBounds;
+
+  // Slot i holds the product ids[i]. Deleting moves the last slot into the hole
+  // so the columns stay dense.
+  private long[] ids = new long[1024];
+  private double[] prices = new double[1024];
+  private int[] quantities = new int[1024];
+  private int size;
+  private final SlotMap slots = new SlotMap();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public ProductFacetIndex(ProductTextIndex productTextIndex,
+      @Value("${product.facets.price-bounds:10,25,50,100,250}") double[] priceBounds,
+      @Value("${product.facets.stock-bounds:1,10,50,100}") double[] stockBounds) {
+    this.productTextIndex = productTextIndex;
+    this.priceBounds = priceBounds.clone();
+    this.stockBounds = stockBounds.clone();
+    Arrays.sort(this.priceBounds);
+    Arrays.sort(this.stockBounds);
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    lock.writeLock().lock();
+    try {
+      for (Product product : event.products()) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+          remove(product.getId());
+        } else {
+          put(product);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Counts the products matching a standard search per price range and stock
+   * band.
+   *
+   * @param searchTerm The search term, blank for the whole catalog.
+   * @param minStock   Only products with more stock than this are counted.
+   * @return The bucket counts, every bucket is present even when empty.
+   */
+  public ProductDTO.Facets facets(String searchTerm, int minStock) {
+    int[] priceCounts = new int[priceBounds.length + 1];
+    int[] stockCounts = new int[stockBounds.length + 1];
+    int total = 0;
+
+    Set<String> tokens = searchTerm == null || searchTerm.isBlank() ? null
+        : new LinkedHashSet<>(ProductTextIndex.tokenize(searchTerm));
+
+    lock.readLock().lock();
+    try {
+      if (tokens == null) {
+        for (int slot = 0; slot < size; slot++) {
+          total += count(slot, minStock, priceCounts, stockCounts);
+        }
+      } else if (!tokens.isEmpty()) {
+        long[] matched = matches(tokens);
+        for (int word = 0; word < matched.length; word++) {
+          for (long bits = matched[word]; bits != 0; bits &= bits - 1) {
+            total += count((word << 6) + Long.numberOfTrailingZeros(bits), minStock, priceCounts, stockCounts);
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    return new ProductDTO.Facets(total, buckets(priceBounds, priceCounts), buckets(stockBounds, stockCounts));
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Marks the slots of the products matching every token, see
+   * {@link ProductTextIndex#search}. Must hold the read lock.
+   */
+  private long[] matches(Set<String> tokens) {
+    long[] matched = null;
+
+    for (String token : tokens) {
+      long[] hits = new long[(size + 63) >>> 6];
+      productTextIndex.forEachPrefixMatch(token, id -> {
+        int slot = slots.get(id);
+        if (slot >= 0) {
+          hits[slot >>> 6] |= 1L << slot;
+        }
+      });
+
+      if (matched == null) {
+        matched = hits;
+      } else {
+        for (int word = 0; word < matched.length; word++) {
+          matched[word] &= hits[word];
+        }
+      }
+    }
+    return matched;
+  }
+
+  private int count(int slot, int minStock, int[] priceCounts, int[] stockCounts) {
+    if (minStock > 0 && quantities[slot] <= minStock) {
+      return 0;
+    }
+    priceCounts[bucketOf(priceBounds, prices[slot])]++;
+    stockCounts[bucketOf(stockBounds, quantities[slot])]++;
+    return 1;
+  }
+
+  /**
+   * Bucket i covers [bounds[i - 1], bounds[i]), the first one starts at zero
+   * and the last one is open ended.
+   */
+  private static int bucketOf(double[] bounds, double value) {
+    int index = Arrays.binarySearch(bounds, value);
+    return index >= 0 ? index + 1 : -(index + 1);
+  }
+
+  private static List<ProductDTO.Facets.Bucket> buckets(double[] bounds, int[] counts) {
+    List<ProductDTO.Facets.Bucket> buckets = new ArrayList<>(counts.length);
+    for (int i = 0; i < counts.length; i++) {
+      buckets.add(new ProductDTO.Facets.Bucket(
+          i == 0 ? 0.0 : bounds[i - 1],
+          i == bounds.length ? null : bounds[i],
+          counts[i]));
+    }
+    return buckets;
+  }
+
+  private void put(Product product) {
+    int slot = slots.get(product.getId());
+
+    if (slot < 0) {
+      if (size == ids.length) {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+      }
+      slot = size++;
+      slots.put(product.getId(), slot);
+    }
+
+    ids[slot] = product.getId();
+    prices[slot] = product.getPrice();
+    quantities[slot] = product.getQuantity();
+  }
+
+  private void remove(Long productId) {
+    int slot = slots.remove(productId);
+
+    if (slot < 0) {
+      return;
+    }
+
+    int last = --size;
+    if (slot != last) {
+      ids[slot] = ids[last];
+      prices[slot] = prices[last];
+      quantities[slot] = quantities[last];
+      slots.put(ids[slot], slot);
+    }
+  }
+
+  /**
+   * Product id to slot, open addressed with linear probing so a lookup boxes
+   * neither the id nor the slot.
+   */
+  private static final class SlotMap {
+
+    private long[] keys = new long[2048];
+    // Slot + 1, zero marks a free entry.
+    private int[] values = new int[2048];
+    private int count;
+
+    /**
+     * @return The slot of the id, -1 if it has none.
+     */
+    int get(long id) {
+      int mask = keys.length - 1;
+      for (int i = indexOf(id, mask); values[i] != 0; i = (i + 1) & mask) {
+        if (keys[i] == id) {
+          return values[i] - 1;
+        }
+      }
+      return -1;
+    }
+
+    void put(long id, int slot) {
+      if ((count + 1) * 2 > keys.length) {
+        resize(keys.length * 2);
+      }
+
+      int mask = keys.length - 1;
+      int i = indexOf(id, mask);
+      while (values[i] != 0 && keys[i] != id) {
+        i = (i + 1) & mask;
+      }
+      if (values[i] == 0) {
+        count++;
+      }
+      keys[i] = id;
+      values[i] = slot + 1;
+    }
+
+    /**
+     * @return The slot the id had, -1 if it had none.
+     */
+    int remove(long id) {
+      int mask = keys.length - 1;
+      int hole = indexOf(id, mask);
+      while (values[hole] != 0 && keys[hole] != id) {
+        hole = (hole + 1) & mask;
+      }
+      if (values[hole] == 0) {
+        return -1;
+      }
+
+      int slot = values[hole] - 1;
+      count--;
+
+      // Moves the later entries of the probe run back, so none is left behind
+      // a free entry.
+      for (int i = (hole + 1) & mask; values[i] != 0; i = (i + 1) & mask) {
+        if (((i - indexOf(keys[i], mask)) & mask) >= ((i - hole) & mask)) {
+          keys[hole] = keys[i];
+          values[hole] = values[i];
+          hole = i;
+        }
+      }
+      values[hole] = 0;
+      return slot;
+    }
+
+    private void resize(int capacity) {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[capacity];
+      values = new int[capacity];
+      count = 0;
+
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != 0) {
+          put(oldKeys[i], oldValues[i] - 1);
+        }
+      }
+    }
+
+    private static int indexOf(long id, int mask) {
+      return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@Service
+public class ProductImportService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+  private final ProductRepository productRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${product.import.chunk-size:1000}")
+  private int chunkSize;
+
+  public ProductImportService(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+      ApplicationEventPublisher eventPublisher) {
+    this.productRepository = productRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Bulk loads products in chunks, each committed in its own transaction and
+   * flushed as JDBC insert batches. Duplicate SKUs are reported per row instead
+   * of rolling back the whole import.
+   *
+   * @param requests The products to create.
+   * @return How many products were imported and which ones failed, per chunk.
+   */
+  public ProductDTO.ImportReport importProducts(List<ProductDTO.CreateRequest> requests) {
+    Set<String> seenSkus = new HashSet<>();
+    List<ProductDTO.ImportReport.ChunkReport> chunks = new ArrayList<>();
+    int totalChunks = (requests.size() + chunkSize - 1) / chunkSize;
+    int imported = 0;
+    int failed = 0;
+
+    for (int start = 0; start < requests.size(); start += chunkSize) {
+      List<ProductDTO.CreateRequest> chunk = requests.subList(start, Math.min(start + chunkSize, requests.size()));
+      ProductDTO.ImportReport.ChunkReport report = importChunk(chunks.size(), chunk, seenSkus);
+
+      chunks.add(report);
+      imported += report.getImported();
+      failed += report.getFailed();
+
+      logger.info("Product import chunk {}/{}: {} imported, {} failed", report.getIndex() + 1, totalChunks,
+          report.getImported(), report.getFailed());
+    }
+
+    return ProductDTO.ImportReport.builder()
+        .received(requests.size())
+        .imported(imported)
+        .failed(failed)
+        .chunks(chunks)
+        .build();
+  }
+
+  private ProductDTO.ImportReport.ChunkReport importChunk(int index, List<ProductDTO.CreateRequest> chunk,
+      Set<String> seenSkus) {
+    List<ProductDTO.ImportReport.Failure> failures = new ArrayList<>();
+    List<Product> pending = new ArrayList<>(chunk.size());
+
+    Set<String> existingSkus = new HashSet<>(
+        productRepository.findExistingSkus(chunk.stream().map(ProductDTO.CreateRequest::getSku).toList()));
+
+    for (ProductDTO.CreateRequest request : chunk) {
+      if (existingSkus.contains(request.getSku())) {
+        failures.add(new ProductDTO.ImportReport.Failure(request.getSku(), "SKU already exists"));
+      } else if (!seenSkus.add(request.getSku())) {
+        failures.add(new ProductDTO.ImportReport.Failure(request.getSku(), "Duplicate SKU in request"));
+      } else {
+        pending.add(Product.builder()
+            .sku(request.getSku())
+            .name(request.getName())
+            .description(request.getDescription())
+            .price(request.getPrice())
+            .quantity(request.getQuantity())
+            .build());
+      }
+    }
+
+    List<Product> saved = new ArrayList<>(pending.size());
+
+    try {
+      saved.addAll(transactionTemplate.execute(_ -> {
+        List<Product> products = productRepository.saveAll(pending);
+        productRepository.flush();
+        return products;
+      }));
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent writer took one of the SKUs after the pre-check. Retry the
+      // chunk row by row so only the conflicting products are rejected.
+      logger.warn("Product import chunk {} hit a constraint violation, retrying row by row", index + 1);
+      entityManager.clear();
+      for (Product product : pending) {
+        product.setId(null);
+        try {
+          saved.add(transactionTemplate.execute(_ -> productRepository.saveAndFlush(product)));
+        } catch (DataIntegrityViolationException rowError) {
+          entityManager.clear();
+          failures.add(new ProductDTO.ImportReport.Failure(product.getSku(), reasonOf(product, rowError)));
+        }
+      }
+    }
+
+    if (!saved.isEmpty()) {
+      eventPublisher.publishEvent(ProductChangedEvent.saved(saved));
+    }
+
+    // Keep the persistence context from accumulating every imported product.
+    entityManager.clear();
+
+    return ProductDTO.ImportReport.ChunkReport.builder()
+        .index(index)
+        .imported(saved.size())
+        .failed(failures.size())
+        .failures(failures)
+        .build();
+  }
+
+  /**
+   * Names the constraint a product broke, only the SKU constraint is reported
+   * as a taken SKU.
+   */
+  private static String reasonOf(Product product, DataIntegrityViolationException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+        String constraint = violation.getConstraintName();
+        return constraint.toLowerCase().contains(Product.SKU_CONSTRAINT) ? "SKU already exists"
+            : "Violates constraint " + constraint;
+      }
+    }
+
+    logger.warn("Product import rejected SKU {}: {}", product.getSku(), e.getMostSpecificCause().getMessage());
+    return "Rejected by the database";
+  }
+}
@@ -0,0 +1,86 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+
+/**
+ * Replays the whole catalog as {@link ProductChangedEvent}s on startup so every
+ * in-memory product index is populated before the web server accepts traffic.
+ * Products are read in id-ordered chunks to keep the heap flat.
+ */
+@Component
+public class ProductIndexLoader implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductIndexLoader.class);
+
+  private final ProductRepository productRepository;
+  private final ApplicationEventPublisher eventPublisher;
+
+  @Value("${product.index.load-chunk-size:1000}")
+  private int chunkSize;
+
+  private volatile boolean running = false;
+
+  public ProductIndexLoader(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
+    this.productRepository = productRepository;
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Override
+  public void start() {
+    long startedAt = System.currentTimeMillis();
+    long lastId = 0;
+    int loaded = 0;
+
+    while (true) {
+      List<Product> chunk = productRepository.findByIdGreaterThan(lastId,
+          PageRequest.of(0, chunkSize, Sort.by("id")));
+
+      if (chunk.isEmpty()) {
+        break;
+      }
+
+      eventPublisher.publishEvent(ProductChangedEvent.saved(chunk));
+
+      loaded += chunk.size();
+      lastId = chunk.get(chunk.size() - 1).getId();
+
+      if (chunk.size() < chunkSize) {
+        break;
+      }
+    }
+
+    running = true;
+    logger.info("Product indexes loaded with {} products in {} ms", loaded, System.currentTimeMillis() - startedAt);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Runs ahead of the embedded web server, which starts in a much later phase.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+}
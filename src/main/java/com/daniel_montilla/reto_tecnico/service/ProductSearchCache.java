@@ -0,0 +1,125 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded LRU cache of product search results. Every product write bumps a
+ * catalog version and entries computed under an older version are treated as
+ * misses, so a write never has to walk the cache to invalidate it.
+ *
+ * Stock changes from sales do not bump the version, they land about once a
+ * second under order traffic and would keep the cache empty. Cached results
+ * may show stock as of the last catalog write, adding to a cart checks the
+ * live stock anyway.
+ *
+ * Hits, misses, evictions and size are published as
+ * {@code product.search.cache.*} meters under /actuator/metrics.
+ */
+@Service
+public class ProductSearchCache {
+
+  public record Key(String mode, String query, String sortBy, String sortOrder, int minStock, String cursor,
+      int limit) {
+  }
+
+  private record Entry(long version, Object result) {
+  }
+
+  private final AtomicLong version = new AtomicLong();
+  private final Map<Key, Entry> entries;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public ProductSearchCache(MeterRegistry meterRegistry,
+      @Value("${product.search.cache.max-entries:1000}") int maxEntries) {
+    this.meterRegistry = meterRegistry;
+    this.hits = Counter.builder("product.search.cache.requests").tag("result", "hit").register(meterRegistry);
+    this.misses = Counter.builder("product.search.cache.requests").tag("result", "miss").register(meterRegistry);
+    this.evictions = Counter.builder("product.search.cache.evictions").register(meterRegistry);
+
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > maxEntries) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * The size gauge holds on to the cache, so it is registered once the cache
+   * is fully constructed.
+   */
+  @PostConstruct
+  public void registerGauges() {
+    Gauge.builder("product.search.cache.size", this, ProductSearchCache::size).register(meterRegistry);
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    version.incrementAndGet();
+  }
+
+  /**
+   * Returns the cached result for the key or computes and stores it. The loader
+   * runs outside the lock so slow queries do not serialize other lookups.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Key key, Supplier<T> loader) {
+    long current = version.get();
+
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.version() == current) {
+        hits.increment();
+        return (T) entry.result();
+      }
+      if (entry != null) {
+        entries.remove(key);
+      }
+    }
+
+    misses.increment();
+    T result = loader.get();
+
+    // Skip the store if a write landed during the load, the result may already
+    // be stale.
+    if (version.get() == current) {
+      synchronized (entries) {
+        entries.put(key, new Entry(current, result));
+      }
+    }
+
+    return result;
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
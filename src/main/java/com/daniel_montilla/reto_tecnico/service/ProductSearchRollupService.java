@@ -0,0 +1,182 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearchRollup;
+import com.daniel_montilla.reto_tecnico.entity.ProductSearchRollup.Granularity;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRollupRepository;
+
+/**
+ * Incrementally rolls the raw product search log up into per-minute and
+ * per-hour counts of (normalized term, sortBy, sortOrder), then compacts the
+ * raw rows and old minute buckets away.
+ *
+ * The last minute bucket written is the watermark: every run picks up the
+ * closed minutes after it, one hour at a time. A minute only closes once
+ * {@code lateness} has passed, leaving room for searches still queued in the
+ * {@link ProductSearchWriter}.
+ */
+@Service
+public class ProductSearchRollupService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductSearchRollupService.class);
+
+  private record Key(LocalDateTime bucketStart, String searchTerm, String sortBy, String sortOrder) {
+  }
+
+  private final ProductSearchRepository productSearchRepository;
+  private final ProductSearchRollupRepository productSearchRollupRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  private final Duration lateness;
+  private final Duration rawRetention;
+  private final Duration minuteRetention;
+
+  public ProductSearchRollupService(ProductSearchRepository productSearchRepository,
+      ProductSearchRollupRepository productSearchRollupRepository, PlatformTransactionManager transactionManager,
+      @Value("${product.search.rollup.lateness:1m}") Duration lateness,
+      @Value("${product.search.rollup.raw-retention:24h}") Duration rawRetention,
+      @Value("${product.search.rollup.minute-retention:7d}") Duration minuteRetention) {
+    this.productSearchRepository = productSearchRepository;
+    this.productSearchRollupRepository = productSearchRollupRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.lateness = lateness;
+    this.rawRetention = rawRetention;
+    this.minuteRetention = minuteRetention;
+  }
+
+  @Scheduled(fixedDelayString = "${product.search.rollup.interval-ms:60000}",
+      initialDelayString = "${product.search.rollup.interval-ms:60000}")
+  public void scheduledRollup() {
+    rollup(LocalDateTime.now());
+  }
+
+  /**
+   * Rolls up every closed minute after the watermark and compacts what is past
+   * retention.
+   *
+   * @param now The current time.
+   * @return How many raw searches were rolled up.
+   */
+  public long rollup(LocalDateTime now) {
+    LocalDateTime closedBefore = now.minus(lateness).truncatedTo(ChronoUnit.MINUTES);
+    LocalDateTime from = nextUnrolledMinute();
+    long rolled = 0;
+
+    while (from != null && from.isBefore(closedBefore)) {
+      LocalDateTime nextHour = from.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+      LocalDateTime to = nextHour.isBefore(closedBefore) ? nextHour : closedBefore;
+      LocalDateTime start = from;
+
+      rolled += transactionTemplate.execute(_ -> rollupRange(start, to));
+      from = to;
+    }
+
+    // Raw rows are only dropped once rolled up, even when past retention.
+    int compacted = 0;
+    if (from != null) {
+      LocalDateTime retentionStart = now.minus(rawRetention);
+      LocalDateTime compactBefore = from.isBefore(retentionStart) ? from : retentionStart;
+      compacted = transactionTemplate.execute(_ -> productSearchRepository.deleteCreatedBefore(compactBefore));
+    }
+
+    int expired = transactionTemplate.execute(_ -> productSearchRollupRepository
+        .deleteOlderThan(Granularity.MINUTE, now.minus(minuteRetention)));
+
+    if (rolled > 0 || compacted > 0 || expired > 0) {
+      logger.info("Product search rollup: {} searches rolled up, {} raw rows and {} minute buckets compacted",
+          rolled, compacted, expired);
+    }
+
+    return rolled;
+  }
+
+  private LocalDateTime nextUnrolledMinute() {
+    LocalDateTime latest = productSearchRollupRepository.findLatestBucketStart(Granularity.MINUTE);
+    if (latest != null) {
+      return latest.plusMinutes(1);
+    }
+
+    LocalDateTime oldest = productSearchRepository.findOldestCreatedAt();
+    return oldest == null ? null : oldest.truncatedTo(ChronoUnit.MINUTES);
+  }
+
+  /**
+   * Rolls up [from, to), which never spans more than one hour bucket.
+   */
+  private long rollupRange(LocalDateTime from, LocalDateTime to) {
+    // Grouped by raw term in the database, terms are normalized here.
+    List<ProductSearchRepository.MinuteCount> counts = productSearchRepository.countPerMinute(from, to);
+
+    if (counts.isEmpty()) {
+      return 0;
+    }
+
+    Map<Key, Long> minutes = new HashMap<>();
+    Map<Key, Long> hours = new HashMap<>();
+    long searches = 0;
+
+    for (ProductSearchRepository.MinuteCount count : counts) {
+      searches += count.getSearches();
+      String term = SearchTrends.normalize(count.getSearchTerm());
+      if (term.isEmpty()) {
+        continue;
+      }
+      LocalDateTime minute = count.getBucketStart();
+      minutes.merge(new Key(minute, term, count.getSortBy(), count.getSortOrder()), count.getSearches(),
+          Long::sum);
+      hours.merge(new Key(minute.truncatedTo(ChronoUnit.HOURS), term, count.getSortBy(), count.getSortOrder()),
+          count.getSearches(), Long::sum);
+    }
+
+    List<ProductSearchRollup> rollups = new ArrayList<>(minutes.size() + hours.size());
+    minutes.forEach((key, searchCount) -> rollups.add(rollupOf(Granularity.MINUTE, key, searchCount)));
+
+    // The hour bucket may already hold earlier minutes of the same hour.
+    Map<Key, ProductSearchRollup> existingHours = new HashMap<>();
+    for (ProductSearchRollup hour : productSearchRollupRepository
+        .findAllByGranularityAndBucketStart(Granularity.HOUR, from.truncatedTo(ChronoUnit.HOURS))) {
+      existingHours.put(new Key(hour.getBucketStart(), hour.getSearchTerm(), hour.getSortBy(), hour.getSortOrder()),
+          hour);
+    }
+
+    hours.forEach((key, searchCount) -> {
+      ProductSearchRollup existing = existingHours.get(key);
+      if (existing != null) {
+        existing.setSearches(existing.getSearches() + searchCount);
+        rollups.add(existing);
+      } else {
+        rollups.add(rollupOf(Granularity.HOUR, key, searchCount));
+      }
+    });
+
+    productSearchRollupRepository.saveAll(rollups);
+    return searches;
+  }
+
+  private static ProductSearchRollup rollupOf(Granularity granularity, Key key, long searches) {
+    return ProductSearchRollup.builder()
+        .granularity(granularity)
+        .bucketStart(key.bucketStart())
+        .searchTerm(key.searchTerm())
+        .sortBy(key.sortBy())
+        .sortOrder(key.sortOrder())
+        .searches(searches)
+        .build();
+  }
+}
@@ -1,24 +1,37 @@
 package com.daniel_montilla.reto_tecnico.service;
 
+import com.daniel_montilla.reto_tecnico.dto.ProductSearchDTO;
 import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
-import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+import com.daniel_montilla.reto_tecnico.entity.ProductSearchRollup;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRollupRepository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.stereotype.Service;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
 
 @Service
 public class ProductSearchService {
 
-  private final ProductSearchRepository productSearchRepository;
+  private final ProductSearchWriter productSearchWriter;
+  private final SearchTrends searchTrends;
+  private final RecentSearches recentSearches;
+  private final ProductSearchRollupRepository productSearchRollupRepository;
 
-  public ProductSearchService(ProductSearchRepository productSearchRepository) {
-    this.productSearchRepository = productSearchRepository;
+  public ProductSearchService(ProductSearchWriter productSearchWriter, SearchTrends searchTrends,
+      RecentSearches recentSearches, ProductSearchRollupRepository productSearchRollupRepository) {
+    this.productSearchWriter = productSearchWriter;
+    this.searchTrends = searchTrends;
+    this.recentSearches = recentSearches;
+    this.productSearchRollupRepository = productSearchRollupRepository;
   }
 
-  @Async
+  /**
+   * Records a search. The row is queued and written in a later batch by the
+   * {@link ProductSearchWriter}, so this never blocks the caller.
+   */
   public void logSearch(String searchTerm, String sortBy, String sortOrder) {
     if (searchTerm == null || searchTerm.isBlank()) {
       return;
@@ -28,11 +41,34 @@ public class ProductSearchService {
     search.setSearchTerm(searchTerm);
     search.setSortBy(sortBy);
     search.setSortOrder(sortOrder);
+    search.setCreatedAt(LocalDateTime.now());
+
+    productSearchWriter.enqueue(search);
+    recentSearches.append(search);
+    searchTrends.record(searchTerm);
+  }
+
+  public List<ProductSearchDTO.TrendingTerm> getTrendingSearches(SearchTrends.Window window, int limit) {
+    return searchTrends.top(window, limit);
+  }
+
+  /**
+   * Most searched terms of the last hours, read from the hourly rollups. The
+   * current hour only counts the minutes rolled up so far.
+   */
+  public List<ProductSearchDTO.TermCount> getTopSearches(int hours, int limit) {
+    LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(hours - 1);
 
-    productSearchRepository.save(search);
+    return productSearchRollupRepository
+        .findTopTerms(ProductSearchRollup.Granularity.HOUR, since, PageRequest.of(0, limit)).stream()
+        .map(termCount -> new ProductSearchDTO.TermCount(termCount.getSearchTerm(), termCount.getSearches()))
+        .toList();
   }
 
-  public List<ProductSearch> getRecentSearches() {
-    return productSearchRepository.findRecent(PageRequest.of(0, 10));
+  /**
+   * Served from the in-memory ring, includes searches not written yet.
+   */
+  public List<ProductSearch> getRecentSearches(int limit) {
+    return recentSearches.latest(limit);
   }
 }
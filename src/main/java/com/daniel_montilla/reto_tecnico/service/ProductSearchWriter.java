@@ -0,0 +1,161 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Write-behind persistence of the product search log. Searches are queued in
+ * memory and a dedicated thread inserts them in JDBC batches, once a batch is
+ * full or the flush interval elapses, so logging never holds a request or an
+ * async executor thread.
+ *
+ * When the queue is full new searches are dropped and counted in
+ * {@code product.search.log.dropped}. Whatever is still queued is written on
+ * graceful shutdown.
+ */
+@Component
+public class ProductSearchWriter implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductSearchWriter.class);
+
+  private final ProductSearchRepository productSearchRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final BlockingQueue<ProductSearch> queue;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+
+  private final Counter written;
+  private final Counter dropped;
+
+  private volatile boolean running = false;
+  private Thread writer;
+
+  public ProductSearchWriter(ProductSearchRepository productSearchRepository,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      @Value("${product.search.log.queue-capacity:10000}") int queueCapacity,
+      @Value("${product.search.log.batch-size:500}") int batchSize,
+      @Value("${product.search.log.flush-interval-ms:1000}") long flushIntervalMs) {
+    this.productSearchRepository = productSearchRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+    this.written = Counter.builder("product.search.log.written").register(meterRegistry);
+    this.dropped = Counter.builder("product.search.log.dropped").register(meterRegistry);
+    Gauge.builder("product.search.log.pending", queue, BlockingQueue::size).register(meterRegistry);
+  }
+
+  /**
+   * Queues a search for writing without blocking.
+   *
+   * @return false if the queue was full and the search was dropped.
+   */
+  public boolean enqueue(ProductSearch search) {
+    if (queue.offer(search)) {
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    writer = Thread.ofPlatform().name("product-search-writer").daemon().start(this::run);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+
+    try {
+      if (writer != null) {
+        writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) * 5);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    List<ProductSearch> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      flush(batch);
+    }
+    logger.info("Product search writer stopped");
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Starts before and stops after the embedded web server, so searches served
+   * while it drains are still written.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+
+  private void run() {
+    List<ProductSearch> batch = new ArrayList<>(batchSize);
+
+    while (running) {
+      long deadline = System.nanoTime() + flushIntervalNanos;
+
+      try {
+        while (batch.size() < batchSize) {
+          ProductSearch search = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (search == null) {
+            break;
+          }
+          batch.add(search);
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+
+      flush(batch);
+    }
+
+    flush(batch);
+  }
+
+  private void flush(List<ProductSearch> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<ProductSearch> searches = List.copyOf(batch);
+    batch.clear();
+
+    try {
+      transactionTemplate.executeWithoutResult(_ -> productSearchRepository.saveAll(searches));
+      written.increment(searches.size());
+    } catch (RuntimeException e) {
+      logger.error("Failed to write {} product searches", searches.size(), e);
+      dropped.increment(searches.size());
+    }
+  }
+}
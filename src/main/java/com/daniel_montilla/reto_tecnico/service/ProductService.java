@@ -1,5 +1,6 @@
 package com.daniel_montilla.reto_tecnico.service;
 
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
 import com.daniel_montilla.reto_tecnico.entity.Product;
 import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
 import jakarta.persistence.criteria.Predicate;
@@ -7,31 +8,66 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ProductService {
 
   private final ProductRepository productRepository;
   private final ProductSearchService productSearchService;
+  private final ProductTextIndex productTextIndex;
+  private final ProductTrigramIndex productTrigramIndex;
+  private final ProductSearchCache productSearchCache;
 
-  public ProductService(ProductRepository productRepository, ProductSearchService productSearchService) {
+  public ProductService(ProductRepository productRepository, ProductSearchService productSearchService,
+      ProductTextIndex productTextIndex, ProductTrigramIndex productTrigramIndex,
+      ProductSearchCache productSearchCache) {
     this.productRepository = productRepository;
     this.productSearchService = productSearchService;
+    this.productTextIndex = productTextIndex;
+    this.productTrigramIndex = productTrigramIndex;
+    this.productSearchCache = productSearchCache;
   }
 
-  public List<Product> searchProducts(String searchTerm, String sortBy, String sortOrder, int minStock) {
+  public ProductDTO.Page listProducts(String sortBy, String sortOrder, ProductCursor cursor, int limit) {
+    return findPage(null, sortBy, sortOrder, cursor, limit);
+  }
+
+  public ProductDTO.Page searchProducts(String searchTerm, String sortBy, String sortOrder, int minStock,
+      ProductCursor cursor, int limit) {
     productSearchService.logSearch(searchTerm, sortBy, sortOrder);
 
+    var key = new ProductSearchCache.Key("standard", searchTerm, sortBy, sortOrder, minStock,
+        cursor == null ? null : cursor.encode(), limit);
+
+    return productSearchCache.get(key, () -> findMatches(searchTerm, sortBy, sortOrder, minStock, cursor, limit));
+  }
+
+  private ProductDTO.Page findMatches(String searchTerm, String sortBy, String sortOrder, int minStock,
+      ProductCursor cursor, int limit) {
+    // Candidates come from the inverted index so the database only has to
+    // hydrate the matching ids instead of scanning every row with LIKE.
+    Set<Long> candidateIds = null;
+
+    if (searchTerm != null && !searchTerm.isBlank()) {
+      candidateIds = productTextIndex.search(searchTerm);
+
+      if (candidateIds.isEmpty()) {
+        return new ProductDTO.Page(List.of(), null);
+      }
+    }
+
+    Set<Long> ids = candidateIds;
+
     Specification<Product> spec = (root, _, criteriaBuilder) -> {
       List<Predicate> predicates = new ArrayList<>();
 
-      if (searchTerm != null && !searchTerm.isBlank()) {
-        String likePattern = "%" + searchTerm.toLowerCase() + "%";
-        Predicate namePredicate = criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), likePattern);
-        Predicate descriptionPredicate = criteriaBuilder.like(criteriaBuilder.lower(root.get("description")),
-            likePattern);
-        predicates.add(criteriaBuilder.or(namePredicate, descriptionPredicate));
+      if (ids != null) {
+        predicates.add(root.get("id").in(ids));
       }
 
       if (minStock > 0) {
@@ -41,8 +77,73 @@ public class ProductService {
       return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
     };
 
-    Sort sort = Sort.by(Sort.Direction.fromString(sortOrder), sortBy);
+    return findPage(spec, sortBy, sortOrder, cursor, limit);
+  }
+
+  /**
+   * Typo tolerant search over product names and SKUs. Results are ranked by
+   * trigram similarity, so sorting and cursors do not apply; the minStock filter
+   * is applied to the top matches.
+   */
+  public List<Product> fuzzySearchProducts(String searchTerm, int minStock, int limit) {
+    productSearchService.logSearch(searchTerm, "relevance", "desc");
+
+    if (searchTerm == null || searchTerm.isBlank()) {
+      return List.of();
+    }
+
+    var key = new ProductSearchCache.Key("fuzzy", searchTerm, null, null, minStock, null, limit);
+
+    return productSearchCache.get(key, () -> findFuzzyMatches(searchTerm, minStock, limit));
+  }
+
+  private List<Product> findFuzzyMatches(String searchTerm, int minStock, int limit) {
+    List<ProductTrigramIndex.Match> matches = productTrigramIndex.search(searchTerm, limit);
+
+    if (matches.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Integer> rank = new HashMap<>();
+    for (int i = 0; i < matches.size(); i++) {
+      rank.put(matches.get(i).productId(), i);
+    }
+
+    Specification<Product> spec = (root, _, criteriaBuilder) -> {
+      Predicate matching = root.get("id").in(rank.keySet());
+      return minStock > 0
+          ? criteriaBuilder.and(matching, criteriaBuilder.greaterThan(root.get("quantity"), minStock))
+          : matching;
+    };
+
+    List<Product> products = new ArrayList<>(productRepository.findAll(spec));
+    products.sort(Comparator.comparing(product -> rank.get(product.getId())));
+    return List.copyOf(products);
+  }
+
+  /**
+   * Loads one keyset page: rows strictly after the cursor, ordered by the sort
+   * column with the id as tiebreaker. One extra row is fetched to know whether
+   * a next page exists without running a count query.
+   */
+  private ProductDTO.Page findPage(Specification<Product> filter, String sortBy, String sortOrder,
+      ProductCursor cursor, int limit) {
+    Sort.Direction direction = Sort.Direction.fromString(sortOrder);
+
+    Specification<Product> spec = filter != null ? filter : (_, _, criteriaBuilder) -> criteriaBuilder.conjunction();
+    if (cursor != null) {
+      spec = spec.and(cursor.after(direction.isDescending()));
+    }
+
+    Sort sort = Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+
+    List<Product> rows = productRepository.findBy(spec, query -> query.sortBy(sort).limit(limit + 1).all());
+
+    if (rows.size() <= limit) {
+      return new ProductDTO.Page(rows, null);
+    }
 
-    return productRepository.findAll(spec, sort);
+    List<Product> items = rows.subList(0, limit);
+    return new ProductDTO.Page(items, ProductCursor.of(items.get(limit - 1), sortBy).encode());
   }
 }
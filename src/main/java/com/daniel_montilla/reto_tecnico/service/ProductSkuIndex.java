@@ -0,0 +1,109 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * Hash index from SKU to product id, so integrations can resolve products by
+ * SKU with one probe here and one in the {@link ProductCache}.
+ */
+@Service
+public class ProductSkuIndex {
+
+  private final Map<String, Long> idsBySku = new ConcurrentHashMap<>();
+  private final Map<Long, String> skusById = new ConcurrentHashMap<>();
+
+  private final ProductCache productCache;
+
+  public ProductSkuIndex(ProductCache productCache) {
+    this.productCache = productCache;
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    for (Product product : event.products()) {
+      if (event.type() == ProductChangedEvent.Type.DELETED) {
+        remove(product.getId());
+      } else {
+        index(product);
+      }
+    }
+  }
+
+  public void index(Product product) {
+    String previous = skusById.put(product.getId(), product.getSku());
+
+    if (previous != null && !previous.equals(product.getSku())) {
+      idsBySku.remove(previous, product.getId());
+    }
+
+    idsBySku.put(product.getSku(), product.getId());
+  }
+
+  public void remove(Long productId) {
+    String previous = skusById.remove(productId);
+
+    if (previous != null) {
+      idsBySku.remove(previous, productId);
+    }
+  }
+
+  public Optional<Long> idOf(String sku) {
+    return Optional.ofNullable(idsBySku.get(sku));
+  }
+
+  public Optional<Product> findBySku(String sku) {
+    return idOf(sku)
+        .flatMap(productCache::get)
+        // Guards against a SKU reassigned between the probe and the cache read.
+        .filter(product -> sku.equals(product.getSku()));
+  }
+
+  /**
+   * Resolves several SKUs at once, missing products are loaded with a single
+   * query.
+   *
+   * @param skus The SKUs to look up.
+   * @return The products found, in the order of the SKUs. Unknown SKUs are
+   *         skipped.
+   */
+  public List<Product> findAllBySku(Collection<String> skus) {
+    List<Long> ids = new ArrayList<>(skus.size());
+    for (String sku : skus) {
+      Long id = idsBySku.get(sku);
+      if (id != null) {
+        ids.add(id);
+      }
+    }
+
+    Map<Long, Product> products = productCache.getAll(ids);
+
+    List<Product> found = new ArrayList<>(ids.size());
+    for (String sku : new LinkedHashSet<>(skus)) {
+      Long id = idsBySku.get(sku);
+      Product product = id == null ? null : products.get(id);
+      if (product != null && sku.equals(product.getSku())) {
+        found.add(product);
+      }
+    }
+    return found;
+  }
+
+  public int size() {
+    return idsBySku.size();
+  }
+}
@@ -0,0 +1,399 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * Radix trie over product names and SKUs backing search-as-you-type. Edges are
+ * labelled with whole substrings, so only keys branching apart get a node of
+ * their own. Every node keeps the top products by stock of its subtree, so a
+ * lookup is a walk down the typed prefix and a copy of that list.
+ *
+ * Names are indexed from the start of every word, so "400" also suggests
+ * "Ibuprofen 400mg".
+ */
+@Service
+public class ProductSuggestIndex {
+
+  // Prefixes longer than this are matched against the truncated key.
+  private static final int MAX_KEY_LENGTH = 32;
+
+  private static final Comparator<Entry> BY_STOCK = Comparator.comparingInt(Entry::quantity).reversed()
+      .thenComparing(Entry::name)
+      .thenComparing(Entry::id);
+
+  private record Entry(Long id, String sku, String name, int quantity, Set<String> keys) {
+  }
+
+  private static final Entry[] NONE = new Entry[0];
+
+  private static final class Node {
+    // Label of the edge from the parent.
+    private String label;
+    // Allocated on first use, most nodes are leaves or hold no product.
+    private Map<Character, Node> children;
+    private Set<Long> terminals;
+    private Entry[] top = NONE;
+
+    private Node(String label) {
+      this.label = label;
+    }
+
+    private Node child(char first) {
+      return children == null ? null : children.get(first);
+    }
+
+    private void putChild(Node child) {
+      if (children == null) {
+        children = new HashMap<>(4);
+      }
+      children.put(child.label.charAt(0), child);
+    }
+
+    private void removeChild(char first) {
+      if (children != null) {
+        children.remove(first);
+        if (children.isEmpty()) {
+          children = null;
+        }
+      }
+    }
+
+    private boolean hasTerminals() {
+      return terminals != null && !terminals.isEmpty();
+    }
+  }
+
+  private final Node root = new Node("");
+  private final Map<Long, Entry> entries = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final int topK;
+
+  public ProductSuggestIndex(@Value("${product.suggest.top-k:10}") int topK) {
+    this.topK = topK;
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    for (Product product : event.products()) {
+      if (event.type() == ProductChangedEvent.Type.DELETED) {
+        remove(product.getId());
+      } else {
+        index(product);
+      }
+    }
+  }
+
+  public void index(Product product) {
+    Entry entry = new Entry(product.getId(), product.getSku(), product.getName(), product.getQuantity(),
+        keys(product));
+
+    lock.writeLock().lock();
+    try {
+      Entry previous = entries.put(entry.id(), entry);
+
+      if (previous != null) {
+        for (String key : previous.keys()) {
+          if (!entry.keys().contains(key)) {
+            unlink(key, entry.id());
+          }
+        }
+      }
+
+      // Keys kept from the previous version are recomputed too, the stock may
+      // have dropped. A new product can only climb, so it is just offered.
+      for (String key : entry.keys()) {
+        link(key, entry, previous == null);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(Long productId) {
+    lock.writeLock().lock();
+    try {
+      Entry previous = entries.remove(productId);
+
+      if (previous == null) {
+        return;
+      }
+
+      for (String key : previous.keys()) {
+        unlink(key, productId);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Suggests the products whose SKU or a word of whose name starts with the
+   * prefix.
+   *
+   * @param prefix What the user typed so far.
+   * @param limit  The maximum number of suggestions, capped by the per node
+   *               top-K.
+   * @return The matching products with the most stock first.
+   */
+  public List<ProductDTO.Suggestion> suggest(String prefix, int limit) {
+    String key = ProductTextIndex.normalize(prefix).strip();
+
+    if (key.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+
+    if (key.length() > MAX_KEY_LENGTH) {
+      key = key.substring(0, MAX_KEY_LENGTH);
+    }
+
+    Entry[] top;
+    lock.readLock().lock();
+    try {
+      Node node = find(key);
+      if (node == null) {
+        return List.of();
+      }
+      top = node.top;
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    List<ProductDTO.Suggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+    for (int i = 0; i < top.length && i < limit; i++) {
+      suggestions.add(new ProductDTO.Suggestion(top[i].id(), top[i].sku(), top[i].name(), top[i].quantity()));
+    }
+    return suggestions;
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static Set<String> keys(Product product) {
+    Set<String> keys = new HashSet<>();
+
+    String sku = ProductTextIndex.normalize(product.getSku()).strip();
+    if (!sku.isEmpty()) {
+      keys.add(truncate(sku));
+    }
+
+    String name = ProductTextIndex.normalize(product.getName());
+    for (int i = 0; i < name.length(); i++) {
+      boolean wordStart = Character.isLetterOrDigit(name.charAt(i))
+          && (i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1)));
+      if (wordStart) {
+        keys.add(truncate(name.substring(i).strip()));
+      }
+    }
+
+    return keys;
+  }
+
+  private static String truncate(String key) {
+    return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+  }
+
+  /**
+   * Returns the node whose subtree holds every key starting with the prefix.
+   * The prefix may end halfway along an edge.
+   */
+  private Node find(String prefix) {
+    Node node = root;
+    int i = 0;
+
+    while (i < prefix.length()) {
+      Node child = node.child(prefix.charAt(i));
+      if (child == null) {
+        return null;
+      }
+
+      int common = commonPrefix(child.label, prefix, i);
+      if (i + common == prefix.length()) {
+        return child;
+      }
+      if (common < child.label.length()) {
+        return null;
+      }
+
+      node = child;
+      i += common;
+    }
+
+    return node;
+  }
+
+  private void link(String key, Entry entry, boolean fresh) {
+    List<Node> path = new ArrayList<>();
+    Node node = root;
+    path.add(node);
+
+    int i = 0;
+    while (i < key.length()) {
+      Node child = node.child(key.charAt(i));
+
+      if (child == null) {
+        child = new Node(key.substring(i));
+        node.putChild(child);
+        path.add(child);
+        node = child;
+        break;
+      }
+
+      int common = commonPrefix(child.label, key, i);
+      if (common < child.label.length()) {
+        // The key leaves the edge halfway, split it there.
+        Node middle = new Node(child.label.substring(0, common));
+        child.label = child.label.substring(common);
+        middle.putChild(child);
+        middle.top = child.top;
+        node.putChild(middle);
+        child = middle;
+      }
+
+      path.add(child);
+      node = child;
+      i += common;
+    }
+
+    if (node.terminals == null) {
+      node.terminals = new HashSet<>(2);
+    }
+    node.terminals.add(entry.id());
+
+    if (fresh) {
+      for (Node step : path) {
+        offer(step, entry);
+      }
+    } else {
+      refresh(path);
+    }
+  }
+
+  private void offer(Node node, Entry entry) {
+    Entry[] top = node.top;
+
+    for (Entry current : top) {
+      if (current.id().equals(entry.id())) {
+        return;
+      }
+    }
+
+    if (top.length == topK && BY_STOCK.compare(entry, top[topK - 1]) >= 0) {
+      return;
+    }
+
+    int position = 0;
+    while (position < top.length && BY_STOCK.compare(top[position], entry) < 0) {
+      position++;
+    }
+
+    Entry[] next = new Entry[Math.min(top.length + 1, topK)];
+    System.arraycopy(top, 0, next, 0, position);
+    next[position] = entry;
+    System.arraycopy(top, position, next, position + 1, next.length - position - 1);
+    node.top = next;
+  }
+
+  private void unlink(String key, Long productId) {
+    List<Node> path = new ArrayList<>();
+    Node node = root;
+    path.add(node);
+
+    int i = 0;
+    while (i < key.length()) {
+      node = node.child(key.charAt(i));
+      if (node == null || !key.startsWith(node.label, i)) {
+        return;
+      }
+      path.add(node);
+      i += node.label.length();
+    }
+
+    if (node.terminals == null) {
+      return;
+    }
+    node.terminals.remove(productId);
+    if (node.terminals.isEmpty()) {
+      node.terminals = null;
+    }
+    refresh(path);
+  }
+
+  /**
+   * Recomputes the top-K of every node on the path, deepest first, from the
+   * node's own products and its children's lists. Nodes left empty are pruned
+   * and nodes left with a single child and no products are merged into it.
+   */
+  private void refresh(List<Node> path) {
+    for (int depth = path.size() - 1; depth >= 0; depth--) {
+      Node node = path.get(depth);
+
+      if (depth > 0 && !node.hasTerminals()) {
+        Node parent = path.get(depth - 1);
+        if (node.children == null) {
+          parent.removeChild(node.label.charAt(0));
+          continue;
+        }
+        if (node.children.size() == 1) {
+          Node only = node.children.values().iterator().next();
+          only.label = node.label + only.label;
+          parent.putChild(only);
+          continue;
+        }
+      }
+
+      // Entries are resolved by id so a child still holding an older version
+      // of a product does not leak it upwards.
+      Map<Long, Entry> candidates = new LinkedHashMap<>();
+      if (node.terminals != null) {
+        for (Long id : node.terminals) {
+          candidates.putIfAbsent(id, entries.get(id));
+        }
+      }
+      if (node.children != null) {
+        for (Node child : node.children.values()) {
+          for (Entry entry : child.top) {
+            candidates.putIfAbsent(entry.id(), entries.get(entry.id()));
+          }
+        }
+      }
+      candidates.values().removeIf(entry -> entry == null);
+
+      node.top = candidates.values().stream()
+          .sorted(BY_STOCK)
+          .limit(topK)
+          .toArray(Entry[]::new);
+    }
+  }
+
+  private static int commonPrefix(String label, String key, int from) {
+    int length = 0;
+    while (length < label.length() && from + length < key.length()
+        && label.charAt(length) == key.charAt(from + length)) {
+      length++;
+    }
+    return length;
+  }
+}
@@ -0,0 +1,179 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * In-memory inverted index over the tokenized name and description of every
+ * product. Search resolves candidate ids from the posting lists so only the
+ * matching rows have to be loaded from the database.
+ */
+@Service
+public class ProductTextIndex {
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+  private final Map<Long, Set<String>> tokensByProduct = new ConcurrentHashMap<>();
+
+  /**
+   * Lowercases the text and strips accents so "Acetaminofén" and "acetaminofen"
+   * land on the same token.
+   */
+  public static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase();
+  }
+
+  public static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    for (String token : SEPARATORS.split(normalize(text))) {
+      if (!token.isEmpty()) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    for (Product product : event.products()) {
+      if (event.type() == ProductChangedEvent.Type.DELETED) {
+        remove(product.getId());
+      } else {
+        index(product);
+      }
+    }
+  }
+
+  public void index(Product product) {
+    Set<String> tokens = new HashSet<>(tokenize(product.getName()));
+    tokens.addAll(tokenize(product.getDescription()));
+
+    Set<String> previous = tokensByProduct.put(product.getId(), tokens);
+
+    if (previous != null) {
+      for (String token : previous) {
+        if (!tokens.contains(token)) {
+          unlink(token, product.getId());
+        }
+      }
+    }
+
+    for (String token : tokens) {
+      postings.compute(token, (_, ids) -> {
+        Set<Long> posting = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+        posting.add(product.getId());
+        return posting;
+      });
+    }
+  }
+
+  public void remove(Long productId) {
+    Set<String> previous = tokensByProduct.remove(productId);
+
+    if (previous == null) {
+      return;
+    }
+
+    for (String token : previous) {
+      unlink(token, productId);
+    }
+  }
+
+  /**
+   * Resolves the ids of the products whose name or description contains a word
+   * starting with every token of the query.
+   *
+   * @param query The raw search term.
+   * @return The matching product ids, empty if nothing matches.
+   */
+  public Set<Long> search(String query) {
+    List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+
+    if (tokens.isEmpty()) {
+      return Set.of();
+    }
+
+    List<Set<Long>> matches = new ArrayList<>(tokens.size());
+    for (String token : tokens) {
+      Set<Long> ids = matchPrefix(token);
+      if (ids.isEmpty()) {
+        return Set.of();
+      }
+      matches.add(ids);
+    }
+
+    // Intersect starting from the most selective token to keep the working set
+    // small.
+    matches.sort(Comparator.comparingInt(Set::size));
+    Set<Long> result = new HashSet<>(matches.get(0));
+    for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+      result.retainAll(matches.get(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * Feeds the id of every product with a word starting with the token to the
+   * action, straight from the posting lists. A product with several such words
+   * comes up once per word.
+   *
+   * @param token A token of the query, see {@link #tokenize}.
+   */
+  public void forEachPrefixMatch(String token, LongConsumer action) {
+    for (Set<Long> posting : prefixRange(token).values()) {
+      for (Long id : posting) {
+        action.accept(id);
+      }
+    }
+  }
+
+  public int size() {
+    return tokensByProduct.size();
+  }
+
+  private Set<Long> matchPrefix(String prefix) {
+    Set<Long> ids = new HashSet<>();
+    for (Set<Long> posting : prefixRange(prefix).values()) {
+      ids.addAll(posting);
+    }
+    return ids;
+  }
+
+  private ConcurrentNavigableMap<String, Set<Long>> prefixRange(String prefix) {
+    return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+  }
+
+  private void unlink(String token, Long productId) {
+    postings.computeIfPresent(token, (_, ids) -> {
+      ids.remove(productId);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+}
@@ -0,0 +1,170 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+
+/**
+ * In-memory trigram index over product names and SKUs backing the typo
+ * tolerant search mode. Candidates are scored by how many of the query
+ * trigrams they contain, so "ibuprofn" still finds "Ibuprofen 400mg" without
+ * touching the database.
+ */
+@Service
+public class ProductTrigramIndex {
+
+  private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+  private final Map<Long, Set<String>> trigramsByProduct = new ConcurrentHashMap<>();
+
+  @Value("${product.search.fuzzy.min-similarity:0.4}")
+  private double minSimilarity = 0.4;
+
+  public record Match(Long productId, double similarity) {
+  }
+
+  /**
+   * Splits the text in words and pads each one like pg_trgm does (two spaces
+   * before, one after) so word boundaries weigh in the similarity.
+   */
+  public static Set<String> trigrams(String text) {
+    Set<String> trigrams = new HashSet<>();
+    for (String token : ProductTextIndex.tokenize(text)) {
+      String padded = "  " + token + " ";
+      for (int i = 0; i + 3 <= padded.length(); i++) {
+        trigrams.add(padded.substring(i, i + 3));
+      }
+    }
+    return trigrams;
+  }
+
+  @EventListener
+  public void onProductChanged(ProductChangedEvent event) {
+    if (event.type() == ProductChangedEvent.Type.STOCK) {
+      return;
+    }
+    for (Product product : event.products()) {
+      if (event.type() == ProductChangedEvent.Type.DELETED) {
+        remove(product.getId());
+      } else {
+        index(product);
+      }
+    }
+  }
+
+  public void index(Product product) {
+    Set<String> trigrams = trigrams(product.getName());
+    trigrams.addAll(trigrams(product.getSku()));
+
+    Set<String> previous = trigramsByProduct.put(product.getId(), trigrams);
+
+    if (previous != null) {
+      for (String trigram : previous) {
+        if (!trigrams.contains(trigram)) {
+          unlink(trigram, product.getId());
+        }
+      }
+    }
+
+    for (String trigram : trigrams) {
+      postings.compute(trigram, (_, ids) -> {
+        Set<Long> posting = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+        posting.add(product.getId());
+        return posting;
+      });
+    }
+  }
+
+  public void remove(Long productId) {
+    Set<String> previous = trigramsByProduct.remove(productId);
+
+    if (previous == null) {
+      return;
+    }
+
+    for (String trigram : previous) {
+      unlink(trigram, productId);
+    }
+  }
+
+  /**
+   * Finds the products most similar to the query.
+   *
+   * @param query The raw, possibly misspelled, search term.
+   * @param limit The maximum number of matches to return.
+   * @return The best matches, most similar first.
+   */
+  public List<Match> search(String query, int limit) {
+    Set<String> queryTrigrams = trigrams(query);
+
+    if (queryTrigrams.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+
+    // Only products sharing at least one trigram with the query are visited.
+    Map<Long, Integer> overlaps = new HashMap<>();
+    for (String trigram : queryTrigrams) {
+      Set<Long> ids = postings.get(trigram);
+      if (ids != null) {
+        for (Long id : ids) {
+          overlaps.merge(id, 1, Integer::sum);
+        }
+      }
+    }
+
+    Comparator<Match> bySimilarity = Comparator.comparingDouble(Match::similarity)
+        .thenComparing(Match::productId, Comparator.reverseOrder());
+    PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, bySimilarity);
+    int minOverlap = (int) Math.ceil(minSimilarity * queryTrigrams.size());
+
+    for (Map.Entry<Long, Integer> entry : overlaps.entrySet()) {
+      if (entry.getValue() < minOverlap) {
+        continue;
+      }
+
+      Set<String> productTrigrams = trigramsByProduct.get(entry.getKey());
+      if (productTrigrams == null) {
+        continue;
+      }
+
+      best.offer(new Match(entry.getKey(), similarity(entry.getValue(), queryTrigrams.size(),
+          productTrigrams.size())));
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+
+    List<Match> matches = new ArrayList<>(best);
+    matches.sort(bySimilarity.reversed());
+    return matches;
+  }
+
+  /**
+   * Mostly how much of the query the product covers, with a small Jaccard term
+   * so shorter, closer names rank above long ones sharing the same trigrams.
+   */
+  private static double similarity(int overlap, int queryCount, int productCount) {
+    double containment = (double) overlap / queryCount;
+    double jaccard = (double) overlap / (queryCount + productCount - overlap);
+    return 0.8 * containment + 0.2 * jaccard;
+  }
+
+  private void unlink(String trigram, Long productId) {
+    postings.computeIfPresent(trigram, (_, ids) -> {
+      ids.remove(productId);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+}
@@ -0,0 +1,97 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+
+/**
+ * Fixed-size ring of the latest product searches. Writers claim a sequence
+ * number and publish into its slot without locking; readers walk back from the
+ * head and skip slots that were overwritten or not published yet, so neither
+ * side ever waits on the other.
+ *
+ * Seeded from the database on startup so the list survives restarts.
+ */
+@Component
+public class RecentSearches implements SmartLifecycle {
+
+  private record Slot(long sequence, ProductSearch search) {
+  }
+
+  private final ProductSearchRepository productSearchRepository;
+  private final AtomicReferenceArray<Slot> slots;
+  private final AtomicLong next = new AtomicLong();
+
+  private volatile boolean running = false;
+
+  public RecentSearches(ProductSearchRepository productSearchRepository,
+      @Value("${product.search.recent.capacity:100}") int capacity) {
+    this.productSearchRepository = productSearchRepository;
+    this.slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  public int capacity() {
+    return slots.length();
+  }
+
+  public void append(ProductSearch search) {
+    long sequence = next.getAndIncrement();
+    slots.set((int) (sequence % slots.length()), new Slot(sequence, search));
+  }
+
+  /**
+   * Returns the latest searches, newest first.
+   *
+   * @param limit The maximum number of searches, capped by the ring capacity.
+   */
+  public List<ProductSearch> latest(int limit) {
+    long head = next.get();
+    long oldest = Math.max(0, head - Math.min(limit, slots.length()));
+
+    List<ProductSearch> searches = new ArrayList<>((int) (head - oldest));
+    for (long sequence = head - 1; sequence >= oldest; sequence--) {
+      Slot slot = slots.get((int) (sequence % slots.length()));
+      if (slot != null && slot.sequence() == sequence) {
+        searches.add(slot.search());
+      }
+    }
+    return searches;
+  }
+
+  @Override
+  public void start() {
+    List<ProductSearch> stored = productSearchRepository.findRecent(PageRequest.of(0, slots.length()));
+
+    for (int i = stored.size() - 1; i >= 0; i--) {
+      append(stored.get(i));
+    }
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Seeded before the embedded web server starts taking searches.
+   */
+  @Override
+  public int getPhase() {
+    return 0;
+  }
+}
@@ -0,0 +1,276 @@
+package com.daniel_montilla.reto_tecnico.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductSearchDTO;
+
+/**
+ * Most searched terms over sliding windows, kept in fixed memory whatever the
+ * search volume. Each window is a ring of time buckets and every bucket is a
+ * Space-Saving summary of at most {@code capacity} terms, so counts are
+ * approximate for terms that fall out of a summary.
+ *
+ * Within one summary a term's count is never under its true count. A window
+ * sums its buckets, and a term evicted from a bucket adds nothing for that
+ * bucket, so the window count can be either over or under the true count.
+ */
+@Service
+public class SearchTrends {
+
+  public enum Window {
+    FIVE_MINUTES("5m", Duration.ofMinutes(1), 5),
+    ONE_HOUR("1h", Duration.ofMinutes(5), 12),
+    ONE_DAY("24h", Duration.ofHours(1), 24);
+
+    private final String label;
+    private final long bucketMillis;
+    private final int buckets;
+
+    Window(String label, Duration bucket, int buckets) {
+      this.label = label;
+      this.bucketMillis = bucket.toMillis();
+      this.buckets = buckets;
+    }
+
+    public static Optional<Window> of(String label) {
+      return Arrays.stream(values()).filter(window -> window.label.equals(label)).findFirst();
+    }
+  }
+
+  private static final Comparator<Map.Entry<String, Long>> MOST_SEARCHED = Map.Entry
+      .<String, Long>comparingByValue().reversed()
+      .thenComparing(Map.Entry.comparingByKey());
+
+  private final int capacity;
+  private final Map<Window, Ring> rings = new HashMap<>();
+
+  public SearchTrends(@Value("${product.search.trends.capacity:200}") int capacity) {
+    this.capacity = capacity;
+    for (Window window : Window.values()) {
+      rings.put(window, new Ring(window, capacity));
+    }
+  }
+
+  public void record(String term) {
+    record(term, System.currentTimeMillis());
+  }
+
+  public void record(String term, long nowMillis) {
+    String key = normalize(term);
+    if (key.isEmpty()) {
+      return;
+    }
+    for (Ring ring : rings.values()) {
+      ring.record(key, nowMillis);
+    }
+  }
+
+  public List<ProductSearchDTO.TrendingTerm> top(Window window, int limit) {
+    return top(window, limit, System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the most searched terms of the window.
+   *
+   * @param window    The window to look at.
+   * @param limit     The maximum number of terms, capped by the summary
+   *                  capacity.
+   * @param nowMillis The end of the window.
+   * @return The terms with their estimated counts, most searched first.
+   */
+  public List<ProductSearchDTO.TrendingTerm> top(Window window, int limit, long nowMillis) {
+    Map<String, Long> counts = rings.get(window).merge(nowMillis);
+
+    return counts.entrySet().stream()
+        .sorted(MOST_SEARCHED)
+        .limit(Math.min(limit, capacity))
+        .map(entry -> new ProductSearchDTO.TrendingTerm(entry.getKey(), entry.getValue()))
+        .toList();
+  }
+
+  /**
+   * Lowercases, strips accents and collapses punctuation and spacing, so
+   * "Acetaminofén 500" and "acetaminofen  500" count as the same term.
+   */
+  public static String normalize(String term) {
+    return String.join(" ", ProductTextIndex.tokenize(term));
+  }
+
+  /**
+   * Time buckets of one window, bucket i holds the slot (time / bucket length)
+   * it was last written for and is reset when the ring wraps around to it.
+   */
+  private static final class Ring {
+    private final Window window;
+    private final long[] slots;
+    private final Summary[] summaries;
+
+    private Ring(Window window, int capacity) {
+      this.window = window;
+      this.slots = new long[window.buckets];
+      this.summaries = new Summary[window.buckets];
+      Arrays.fill(slots, -1);
+      for (int i = 0; i < summaries.length; i++) {
+        summaries[i] = new Summary(capacity);
+      }
+    }
+
+    private synchronized void record(String term, long nowMillis) {
+      long slot = nowMillis / window.bucketMillis;
+      int index = (int) (slot % window.buckets);
+
+      if (slots[index] != slot) {
+        slots[index] = slot;
+        summaries[index].clear();
+      }
+      summaries[index].offer(term);
+    }
+
+    private synchronized Map<String, Long> merge(long nowMillis) {
+      long current = nowMillis / window.bucketMillis;
+      Map<String, Long> counts = new HashMap<>();
+
+      for (int i = 0; i < slots.length; i++) {
+        if (slots[i] > current - window.buckets && slots[i] <= current) {
+          summaries[i].forEach((term, count) -> counts.merge(term, count, Long::sum));
+        }
+      }
+      return counts;
+    }
+  }
+
+  /**
+   * Space-Saving summary: once full, a new term replaces the least counted one
+   * and inherits its count.
+   *
+   * Counters are kept in a Stream-Summary: a list of buckets in ascending
+   * count order, each with the counters at that count. An increment moves a
+   * counter to the next bucket and the least counted term is the head of the
+   * first bucket, so every offer is O(1).
+   */
+  private static final class Summary {
+    private static final class Counter {
+      private String term;
+      private Bucket bucket;
+      private Counter prev;
+      private Counter next;
+
+      private Counter(String term) {
+        this.term = term;
+      }
+    }
+
+    private static final class Bucket {
+      private final long count;
+      private Bucket prev;
+      private Bucket next;
+      private Counter first;
+
+      private Bucket(long count) {
+        this.count = count;
+      }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private Bucket lowest;
+
+    private Summary(int capacity) {
+      this.capacity = capacity;
+      this.counters = new HashMap<>(capacity * 2);
+    }
+
+    private void offer(String term) {
+      Counter counter = counters.get(term);
+
+      if (counter == null) {
+        if (counters.size() < capacity) {
+          counter = new Counter(term);
+        } else {
+          counter = lowest.first;
+          counters.remove(counter.term);
+          counter.term = term;
+        }
+        counters.put(term, counter);
+      }
+
+      increment(counter);
+    }
+
+    private void forEach(BiConsumer<String, Long> action) {
+      counters.forEach((term, counter) -> action.accept(term, counter.bucket.count));
+    }
+
+    private void clear() {
+      counters.clear();
+      lowest = null;
+    }
+
+    private void increment(Counter counter) {
+      Bucket from = counter.bucket;
+      long count = from == null ? 1 : from.count + 1;
+      Bucket to = from == null ? lowest : from.next;
+
+      if (to == null || to.count != count) {
+        Bucket created = new Bucket(count);
+        created.prev = from;
+        created.next = to;
+        if (from != null) {
+          from.next = created;
+        } else {
+          lowest = created;
+        }
+        if (to != null) {
+          to.prev = created;
+        }
+        to = created;
+      }
+
+      if (from != null) {
+        detach(counter);
+      }
+
+      counter.bucket = to;
+      counter.prev = null;
+      counter.next = to.first;
+      if (to.first != null) {
+        to.first.prev = counter;
+      }
+      to.first = counter;
+    }
+
+    private void detach(Counter counter) {
+      Bucket bucket = counter.bucket;
+
+      if (counter.prev != null) {
+        counter.prev.next = counter.next;
+      } else {
+        bucket.first = counter.next;
+      }
+      if (counter.next != null) {
+        counter.next.prev = counter.prev;
+      }
+
+      if (bucket.first == null) {
+        if (bucket.prev != null) {
+          bucket.prev.next = bucket.next;
+        } else {
+          lowest = bucket.next;
+        }
+        if (bucket.next != null) {
+          bucket.next.prev = bucket.prev;
+        }
+      }
+    }
+  }
+}
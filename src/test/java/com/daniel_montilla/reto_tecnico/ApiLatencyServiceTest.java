@@ -0,0 +1,60 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.dto.ApiLatencyDTO;
+import com.daniel_montilla.reto_tecnico.service.ApiLatencyService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiLatencyServiceTest {
+
+  private final ApiLatencyService apiLatencyService = new ApiLatencyService(new SimpleMeterRegistry(),
+      Duration.ofMinutes(2));
+
+  @Test
+  void routes_ShouldReportPercentilesPerRoute() {
+    // Arrange
+    for (int millis = 1; millis <= 100; millis++) {
+      apiLatencyService.record("GET", "/products/search", TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    // Act
+    ApiLatencyDTO.Route route = apiLatencyService.routes().get(0);
+
+    // Assert
+    assertEquals("GET", route.getMethod());
+    assertEquals("/products/search", route.getUri());
+    assertEquals(100, route.getCount());
+    assertEquals(50, route.getP50(), 5);
+    assertEquals(95, route.getP95(), 5);
+    assertEquals(99, route.getP99(), 5);
+    assertEquals(100, route.getMax(), 1);
+  }
+
+  @Test
+  void routes_ShouldKeepRoutesApartAndListSlowestFirst() {
+    // Arrange
+    apiLatencyService.record("GET", "/products/{id}", TimeUnit.MILLISECONDS.toNanos(2));
+    apiLatencyService.record("POST", "/order/place", TimeUnit.MILLISECONDS.toNanos(400));
+    apiLatencyService.record("GET", "/products/{id}", TimeUnit.MILLISECONDS.toNanos(3));
+
+    // Act
+    List<ApiLatencyDTO.Route> routes = apiLatencyService.routes();
+
+    // Assert
+    assertEquals(2, routes.size());
+    assertEquals("/order/place", routes.get(0).getUri());
+    assertEquals(1, routes.get(0).getCount());
+    assertEquals("/products/{id}", routes.get(1).getUri());
+    assertEquals(2, routes.get(1).getCount());
+    assertTrue(routes.get(1).getMax() < 10);
+  }
+}
@@ -22,16 +22,20 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 @SpringBootTest
 @Transactional
@@ -103,7 +107,7 @@ class CartControllerTest {
 		CartItem dbItem = dbItemOptional.get();
 		assertEquals(createRequest.getQuantity(), dbItem.getQuantity());
 		assertEquals(client.getId(), dbItem.getClient().getId());
-		assertEquals(client.getId(), dbItem.getProduct().getId());
+		assertEquals(product.getId(), dbItem.getProduct().getId());
 	}
 
 	@Test
@@ -146,7 +150,7 @@ class CartControllerTest {
 		CartItem prevDbItem = prevItem.get();
 		assertEquals(createRequest1.getQuantity(), prevDbItem.getQuantity());
 		assertEquals(client.getId(), prevDbItem.getClient().getId());
-		assertEquals(client.getId(), prevDbItem.getProduct().getId());
+		assertEquals(product.getId(), prevDbItem.getProduct().getId());
 
 		CartDTO.CreateRequest createRequest2 = CartDTO.CreateRequest.builder()
 				.clientId(client.getId())
@@ -170,7 +174,7 @@ class CartControllerTest {
 		CartItem nextDbItem = nextItem.get();
 		assertEquals(nextDbItem.getQuantity(), createRequest1.getQuantity() + createRequest2.getQuantity());
 		assertEquals(client.getId(), nextDbItem.getClient().getId());
-		assertEquals(client.getId(), nextDbItem.getProduct().getId());
+		assertEquals(product.getId(), nextDbItem.getProduct().getId());
 
 		assertEquals(nextDbItem.getId(), prevDbItem.getId());
 	}
@@ -291,9 +295,190 @@ class CartControllerTest {
 
 		mockMvc.perform(delete("/cart/clear/" + client.getId())
 				.header("Authorization", "Bearer " + MOCK_API_KEY))
-				.andExpect(status().isNoContent());
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.removed").value(2));
 
 		List<CartItem> itemsAfterClear = cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId());
 		assertTrue(itemsAfterClear.isEmpty(), "Cart should be empty after clearing.");
 	}
-}
\ No newline at end of file
+
+	@Test
+	void batchRemove_ShouldRemoveSeveralProductsAndReturnTheCounts() throws Exception {
+		var client = clientRepository.save(Client.builder()
+				.name("Test Client")
+				.email("test@test.com")
+				.phone("1234567890")
+				.address("123 Main St")
+				.build());
+
+		var product1 = productRepository.save(Product.builder()
+				.name("Product 1")
+				.description("Test description")
+				.sku("P1")
+				.price(10.0)
+				.quantity(100)
+				.build());
+
+		var product2 = productRepository.save(Product.builder()
+				.name("Product 2")
+				.description("Test description")
+				.sku("P2")
+				.price(20.0)
+				.quantity(100)
+				.build());
+
+		cartItemRepository.save(CartItem.builder().client(client).product(product1).quantity(1).build());
+		cartItemRepository.save(CartItem.builder().client(client).product(product2).quantity(5).build());
+
+		mockMvc.perform(post("/cart/batch-remove")
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDTO.DeleteManyRequest.builder()
+						.clientId(client.getId())
+						.products(List.of(
+								CartDTO.DeleteManyRequest.Product.builder().id(product1.getId()).quantity(3).build(),
+								CartDTO.DeleteManyRequest.Product.builder().id(product2.getId()).quantity(2).build()))
+						.build())))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.removed").value(1))
+				.andExpect(jsonPath("$.updated").value(1));
+
+		List<CartItem> itemsAfterRemove = cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId());
+		assertEquals(1, itemsAfterRemove.size());
+		assertEquals(product2.getId(), itemsAfterRemove.get(0).getProduct().getId());
+		assertEquals(3, itemsAfterRemove.get(0).getQuantity());
+	}
+
+	@Test
+	void getCart_ShouldReturnTheRunningTotalAfterEveryChange() throws Exception {
+		var client = clientRepository.save(Client.builder()
+				.name("Test Client")
+				.email("test@test.com")
+				.phone("1234567890")
+				.address("123 Main St")
+				.build());
+
+		var product = productRepository.save(Product.builder()
+				.name("Product Total")
+				.description("Test description")
+				.sku("P-TOTAL")
+				.price(29.99)
+				.quantity(100)
+				.build());
+
+		cartItemRepository.save(CartItem.builder().client(client).product(product).quantity(1).build());
+
+		mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(29.99));
+
+		mockMvc.perform(post("/cart/add")
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDTO.CreateRequest.builder()
+						.clientId(client.getId())
+						.productId(product.getId())
+						.quantity(2)
+						.build())))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY))
+				.andExpect(jsonPath("$.total").value(89.97));
+
+		mockMvc.perform(post("/cart/remove")
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDTO.DeleteRequest.builder()
+						.clientId(client.getId())
+						.productId(product.getId())
+						.quantity(5)
+						.build())))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY))
+				.andExpect(jsonPath("$.total").value(0.0));
+	}
+
+	@Test
+	void getCart_WhenUnchanged_ShouldAnswerNotModifiedUntilTheCartChanges() throws Exception {
+		var client = clientRepository.save(Client.builder()
+				.name("Test Client")
+				.email("test@test.com")
+				.phone("1234567890")
+				.address("123 Main St")
+				.build());
+
+		var product = productRepository.save(Product.builder()
+				.name("Product ETag")
+				.description("Test description")
+				.sku("P-ETAG")
+				.price(5.0)
+				.quantity(100)
+				.build());
+
+		String etag = mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", etag))
+				.andExpect(content().string(""));
+
+		mockMvc.perform(post("/cart/add")
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDTO.CreateRequest.builder()
+						.clientId(client.getId())
+						.productId(product.getId())
+						.quantity(1)
+						.build())))
+				.andExpect(status().isOk());
+
+		String changed = mockMvc.perform(get("/cart/" + client.getId())
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(5.0))
+				.andReturn().getResponse().getHeader("ETag");
+
+		assertNotEquals(etag, changed);
+	}
+
+	@Test
+	void add_WhenNotEnoughStock_ShouldReturnConflictAndNotTouchTheCart() throws Exception {
+		var client = clientRepository.save(Client.builder()
+				.name("Test Client")
+				.email("test@test.com")
+				.phone("1234567890")
+				.address("123 Main St")
+				.build());
+
+		var product = productRepository.save(Product.builder()
+				.name("Scarce Product")
+				.description("Test description")
+				.sku("P-SCARCE")
+				.price(10.0)
+				.quantity(3)
+				.build());
+
+		mockMvc.perform(post("/cart/add")
+				.header("Authorization", "Bearer " + MOCK_API_KEY)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(CartDTO.CreateRequest.builder()
+						.clientId(client.getId())
+						.productId(product.getId())
+						.quantity(5)
+						.build())))
+				.andExpect(status().isConflict());
+
+		assertTrue(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()).isEmpty(),
+				"Nothing should be added past the available stock.");
+	}
+}
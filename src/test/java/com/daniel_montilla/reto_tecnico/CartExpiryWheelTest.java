@@ -0,0 +1,82 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+import com.daniel_montilla.reto_tecnico.service.CartExpiryWheel;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class CartExpiryWheelTest {
+
+  private final CartExpiryWheel wheel = new CartExpiryWheel(mock(CartItemRepository.class), 1000,
+      Duration.ofSeconds(5), 8);
+
+  private final long now = System.currentTimeMillis();
+
+  @Test
+  void advance_ShouldExpireCartsIdleForTheWholeTimeout() {
+    // Arrange
+    wheel.touch(1L, now);
+    wheel.touch(2L, now + 2000);
+
+    // Act
+    List<Long> early = wheel.advance(now + 4000);
+    List<Long> expired = wheel.advance(now + 6000);
+
+    // Assert
+    assertTrue(early.isEmpty());
+    assertEquals(List.of(1L), expired);
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  void advance_ShouldRescheduleCartsTouchedAgain() {
+    // Arrange
+    wheel.touch(1L, now);
+    wheel.touch(1L, now + 4000);
+
+    // Act
+    List<Long> first = wheel.advance(now + 6000);
+    List<Long> second = wheel.advance(now + 10000);
+
+    // Assert
+    assertTrue(first.isEmpty());
+    assertEquals(List.of(1L), second);
+  }
+
+  @Test
+  void advance_ShouldGoRoundAgainForDeadlinesPastOneTurn() {
+    // Arrange
+    CartExpiryWheel longWheel = new CartExpiryWheel(mock(CartItemRepository.class), 1000,
+        Duration.ofSeconds(20), 8);
+    longWheel.touch(1L, now);
+
+    // Act
+    List<Long> afterOneTurn = longWheel.advance(now + 9000);
+    List<Long> afterTimeout = longWheel.advance(now + 21000);
+
+    // Assert
+    assertTrue(afterOneTurn.isEmpty());
+    assertEquals(List.of(1L), afterTimeout);
+  }
+
+  @Test
+  void advance_ShouldSkipForgottenCarts() {
+    // Arrange
+    wheel.touch(1L, now);
+    wheel.forget(1L);
+
+    // Act
+    List<Long> expired = wheel.advance(now + 6000);
+
+    // Assert
+    assertTrue(expired.isEmpty());
+    assertEquals(0, wheel.size());
+  }
+}
@@ -49,13 +49,13 @@ class CartServiceTest {
     // Act
     cartService.getItemsOfClient(1L);
     // Assert
-    verify(cartItemRepository).findAllWithProductByClientIdAndFulfilledFalse(1L);
+    verify(cartItemRepository).findAllByClientIdAndFulfilledFalse(1L);
   }
 
   @Test
   void addProductToCart_WhenItemIsNew_ShouldCreateAndSaveNewItem() {
     // Arrange
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.empty());
+    when(cartItemRepository.incrementQuantity(1L, 10L, 2)).thenReturn(0);
     when(clientRepository.getReferenceById(1L)).thenReturn(client);
     when(productRepository.getReferenceById(10L)).thenReturn(product);
     when(cartItemRepository.save(any(CartItem.class))).thenReturn(new CartItem());
@@ -68,46 +68,76 @@ class CartServiceTest {
   }
 
   @Test
-  void addProductToCart_WhenItemExists_ShouldUpdateQuantityAndSave() {
+  void addProductToCart_WhenItemExists_ShouldIncrementQuantityInPlace() {
     // Arrange
-    CartItem existingItem = CartItem.builder().id(100L).client(client).product(product).quantity(3).build();
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.of(existingItem));
-    when(cartItemRepository.save(any(CartItem.class))).thenReturn(existingItem);
+    CartItem updatedItem = CartItem.builder().id(100L).client(client).product(product).quantity(5).build();
+    when(cartItemRepository.incrementQuantity(1L, 10L, 2)).thenReturn(1);
+    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.of(updatedItem));
 
     // Act
-    cartService.addProductToCart(1L, 10L, 2);
+    CartItem result = cartService.addProductToCart(1L, 10L, 2);
+
+    // Assert
+    // The add is a single UPDATE, nothing is read before it or saved after it.
+    verify(cartItemRepository).incrementQuantity(1L, 10L, 2);
+    verify(cartItemRepository, never()).save(any(CartItem.class));
+    assertEquals(100L, result.getId());
+    assertEquals(5, result.getQuantity());
+  }
+
+  @Test
+  void addProductToCart_WhenAConcurrentAddInsertedFirst_ShouldFallBackToIncrement() {
+    // Arrange
+    CartItem updatedItem = CartItem.builder().id(100L).client(client).product(product).quantity(4).build();
+    when(cartItemRepository.incrementQuantity(1L, 10L, 2)).thenReturn(0, 1);
+    when(clientRepository.getReferenceById(1L)).thenReturn(client);
+    when(productRepository.getReferenceById(10L)).thenReturn(product);
+    when(cartItemRepository.save(any(CartItem.class)))
+        .thenThrow(new org.springframework.dao.DataIntegrityViolationException("uk_cart_items_open_line"));
+    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.of(updatedItem));
+
+    // Act
+    CartItem result = cartService.addProductToCart(1L, 10L, 2);
 
     // Assert
-    verify(cartItemRepository).save(existingItem);
-    assertEquals(5, existingItem.getQuantity());
+    verify(cartItemRepository, times(2)).incrementQuantity(1L, 10L, 2);
+    assertEquals(4, result.getQuantity());
   }
 
   @Test
-  void addProductsToCart_ShouldCallAddProductForEachItem() {
+  void addProductsToCart_ShouldMergeDuplicatesAndSaveInOneBatch() {
     // Arrange
     Product product2 = Product.builder().id(11L).name("Test Product 2").price(200.0).build();
-    List<Map.Entry<Long, Integer>> items = List.of(Map.entry(10L, 2), Map.entry(11L, 3));
+    CartItem existingItem = CartItem.builder().id(100L).client(client).product(product).quantity(1).build();
+    List<Map.Entry<Long, Integer>> items = List.of(Map.entry(10L, 2), Map.entry(11L, 3), Map.entry(10L, 4));
 
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(anyLong(), anyLong()))
-        .thenReturn(Optional.empty());
+    when(cartItemRepository.findAllByClientIdAndProductIdInAndFulfilledFalse(eq(1L), anyCollection()))
+        .thenReturn(List.of(existingItem));
     when(clientRepository.getReferenceById(1L)).thenReturn(client);
-    when(productRepository.getReferenceById(10L)).thenReturn(product);
     when(productRepository.getReferenceById(11L)).thenReturn(product2);
-    when(cartItemRepository.save(any(CartItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(cartItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
     // Act
-    cartService.addProductsToCart(1L, items);
+    List<CartItem> result = cartService.addProductsToCart(1L, items);
 
     // Assert
-    verify(cartItemRepository, times(2)).save(any(CartItem.class));
+    // One read and one batched write, whatever the number of entries.
+    verify(cartItemRepository).findAllByClientIdAndProductIdInAndFulfilledFalse(eq(1L), anyCollection());
+    verify(cartItemRepository).saveAll(anyList());
+    verify(cartItemRepository, never()).findByClientIdAndProductIdAndFulfilledFalse(anyLong(), anyLong());
+    verify(cartItemRepository, never()).save(any(CartItem.class));
+
+    assertEquals(3, result.size());
+    assertEquals(7, result.get(0).getQuantity());
+    assertEquals(3, result.get(1).getQuantity());
+    assertSame(result.get(0), result.get(2));
   }
 
   @Test
   void removeProductFromCart_WhenPartialRemove_ShouldUpdateQuantity() {
     // Arrange
     CartItem existingItem = CartItem.builder().id(100L).client(client).product(product).quantity(5).build();
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.of(existingItem));
-    when(cartItemRepository.save(any(CartItem.class))).thenReturn(existingItem);
+    when(cartItemRepository.lockOpenByClientIdAndProductIdIn(1L, List.of(10L))).thenReturn(List.of(existingItem));
 
     // Act
     Optional<CartItem> result = cartService.removeProductFromCart(1L, 10L, 2);
@@ -115,14 +145,15 @@ class CartServiceTest {
     // Assert
     assertTrue(result.isPresent());
     assertEquals(3, result.get().getQuantity());
-    verify(cartItemRepository).save(existingItem);
+    verify(cartItemRepository).flush();
+    verify(cartItemRepository, never()).delete(any(CartItem.class));
   }
 
   @Test
   void removeProductFromCart_WhenFullRemove_ShouldDeleteItem() {
     // Arrange
     CartItem existingItem = CartItem.builder().id(100L).client(client).product(product).quantity(5).build();
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.of(existingItem));
+    when(cartItemRepository.lockOpenByClientIdAndProductIdIn(1L, List.of(10L))).thenReturn(List.of(existingItem));
 
     // Act
     Optional<CartItem> result = cartService.removeProductFromCart(1L, 10L, 5);
@@ -135,23 +166,72 @@ class CartServiceTest {
   @Test
   void removeProductFromCart_WhenItemNotFound_ShouldReturnEmpty() {
     // Arrange
-    when(cartItemRepository.findByClientIdAndProductIdAndFulfilledFalse(1L, 10L)).thenReturn(Optional.empty());
+    when(cartItemRepository.lockOpenByClientIdAndProductIdIn(1L, List.of(10L))).thenReturn(List.of());
 
     // Act
     Optional<CartItem> result = cartService.removeProductFromCart(1L, 10L, 1);
 
     // Assert
     assertTrue(result.isEmpty());
-    verify(cartItemRepository, never()).delete(any());
+    verify(cartItemRepository, never()).delete(any(CartItem.class));
     verify(cartItemRepository, never()).save(any());
   }
 
   @Test
-  void clearCart_ShouldCallRepository() {
+  void clearCart_ShouldDeleteTheOpenItemsInOneStatement() {
+    // Arrange
+    CartItem item = CartItem.builder().product(product).quantity(2).build();
+    when(cartItemRepository.lockOpenByClientId(1L)).thenReturn(List.of(item));
+    when(cartItemRepository.deleteOpenByClientIds(List.of(1L))).thenReturn(1);
+
+    // Act
+    int cleared = cartService.clearCart(1L);
+
+    // Assert
+    assertEquals(1, cleared);
+    verify(cartItemRepository).deleteOpenByClientIds(List.of(1L));
+    verify(cartItemRepository, never()).delete(any());
+  }
+
+  @Test
+  void removeProductsFromCart_ShouldDeleteEmptiedItemsAndUpdateTheRest() {
+    // Arrange
+    Product otherProduct = Product.builder().id(11L).price(5.0).build();
+    CartItem emptied = CartItem.builder().product(product).quantity(2).build();
+    CartItem lowered = CartItem.builder().product(otherProduct).quantity(5).build();
+    when(cartItemRepository.lockOpenByClientIdAndProductIdIn(eq(1L), anyCollection()))
+        .thenReturn(List.of(emptied, lowered));
+    when(cartItemRepository.deleteOpenByClientIdAndProductIdIn(1L, List.of(10L))).thenReturn(1);
+
     // Act
-    cartService.clearCart(1L);
+    CartService.BulkRemoval removal = cartService.removeProductsFromCart(1L,
+        List.of(Map.entry(10L, 2), Map.entry(11L, 1), Map.entry(11L, 1)));
+
     // Assert
-    verify(cartItemRepository).deleteAllByClientId(1L);
+    assertEquals(1, removal.deleted());
+    assertEquals(1, removal.updated());
+    assertEquals(3, lowered.getQuantity());
+    verify(cartItemRepository).deleteOpenByClientIdAndProductIdIn(1L, List.of(10L));
+    verify(cartItemRepository, never()).delete(any());
+  }
+
+  @Test
+  void expireCarts_ShouldDeleteTheLockedItemsOfAllClientsInOneStatement() {
+    // Arrange
+    List<CartItem> items = List.of(
+        CartItem.builder().id(100L).product(product).quantity(2).build(),
+        CartItem.builder().id(101L).product(product).quantity(1).build(),
+        CartItem.builder().id(102L).product(product).quantity(4).build());
+    when(cartItemRepository.lockOpenByClientIdIn(List.of(1L, 2L))).thenReturn(items);
+
+    // Act
+    int expired = cartService.expireCarts(List.of(1L, 2L));
+
+    // Assert
+    assertEquals(3, expired);
+    verify(cartItemRepository).lockOpenByClientIdIn(List.of(1L, 2L));
+    verify(cartItemRepository).deleteAllByIdInBatch(List.of(100L, 101L, 102L));
+    verify(cartItemRepository, never()).deleteOpenByClientIds(anyCollection());
   }
 
   @Test
@@ -170,4 +250,54 @@ class CartServiceTest {
     // Assert
     assertEquals(0, new BigDecimal("96.5").compareTo(total));
   }
+
+  @Test
+  void rebuildTotal_ShouldRecomputeTheTotalFromTheCartItems() {
+    // Arrange
+    Product p1 = Product.builder().id(1L).price(10.0).build();
+    Product p2 = Product.builder().id(2L).price(25.5).build();
+    when(cartItemRepository.findAllByClientIdAndFulfilledFalse(1L)).thenReturn(List.of(
+        CartItem.builder().product(p1).quantity(2).build(),
+        CartItem.builder().product(p2).quantity(3).build()));
+
+    // Act
+    BigDecimal rebuilt = cartService.rebuildTotal(1L);
+
+    // Assert
+    assertEquals(0, new BigDecimal("96.5").compareTo(rebuilt));
+    assertEquals(0, new BigDecimal("96.5").compareTo(cartService.getTotalOfClient(1L)));
+  }
+
+  @Test
+  void removeProductFromCart_WhenRolledBack_ShouldLeaveTheTotal() {
+    // Arrange
+    Product p1 = Product.builder().id(1L).price(10.0).build();
+    CartItem existingItem = CartItem.builder().id(100L).client(client).product(p1).quantity(2).build();
+    when(cartItemRepository.findAllByClientIdAndFulfilledFalse(1L)).thenReturn(List.of(existingItem));
+    when(cartItemRepository.lockOpenByClientIdAndProductIdIn(1L, List.of(1L))).thenReturn(List.of(existingItem));
+    doThrow(new IllegalStateException("flush failed")).when(cartItemRepository).flush();
+    cartService.rebuildTotal(1L);
+
+    // Act
+    assertThrows(IllegalStateException.class, () -> cartService.removeProductFromCart(1L, 1L, 1));
+
+    // Assert
+    assertEquals(0, new BigDecimal("20.0").compareTo(cartService.getTotalOfClient(1L)));
+  }
+
+  @Test
+  void checkTotals_ShouldRebuildTheTotalsThatDrifted() {
+    // Arrange
+    Product p1 = Product.builder().id(1L).price(10.0).build();
+    when(cartItemRepository.findAllByClientIdAndFulfilledFalse(1L))
+        .thenReturn(List.of(CartItem.builder().product(p1).quantity(2).build()))
+        .thenReturn(List.of(CartItem.builder().product(p1).quantity(5).build()));
+    cartService.rebuildTotal(1L);
+
+    // Act
+    cartService.checkTotals();
+
+    // Assert
+    assertEquals(0, new BigDecimal("50.0").compareTo(cartService.getTotalOfClient(1L)));
+  }
 }
@@ -0,0 +1,96 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.exception.InsufficientStockException;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.InventoryReservationService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "inventory.reservations.reconcile-interval-ms=3600000")
+class InventoryReservationServiceTest {
+
+  @Autowired
+  private InventoryReservationService inventoryReservations;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    product = productRepository.save(Product.builder()
+        .name("Reserved Product")
+        .sku("RESERVED-" + System.nanoTime())
+        .description("Held by carts")
+        .price(10.0)
+        .quantity(5)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    productRepository.deleteById(product.getId());
+  }
+
+  @Test
+  void reserve_ShouldRejectWhatIsNotAvailable() {
+    // Arrange
+    inventoryReservations.reserve(product.getId(), 3);
+
+    // Act & Assert
+    assertThrows(InsufficientStockException.class, () -> inventoryReservations.reserve(product.getId(), 3));
+    assertEquals(Optional.of(2), inventoryReservations.available(product.getId()));
+
+    inventoryReservations.release(product.getId(), 1);
+    inventoryReservations.reserve(product.getId(), 3);
+    assertEquals(Optional.of(0), inventoryReservations.available(product.getId()));
+  }
+
+  @Test
+  void reserveAll_WhenOneProductIsShort_ShouldReserveNothing() {
+    // Act & Assert
+    assertThrows(InsufficientStockException.class,
+        () -> inventoryReservations.reserveAll(Map.of(product.getId(), 6)));
+    assertEquals(Optional.of(5), inventoryReservations.available(product.getId()));
+  }
+
+  @Test
+  void reconcile_ShouldTakeSoldUnitsOffTheStockAndKeepTheCounter() {
+    // Arrange
+    inventoryReservations.reserve(product.getId(), 4);
+    inventoryReservations.commit(Map.of(product.getId(), 3));
+
+    // Act
+    inventoryReservations.reconcile();
+
+    // Assert
+    assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    assertEquals(Optional.of(1), inventoryReservations.available(product.getId()));
+  }
+
+  @Test
+  void onProductChanged_ShouldMoveTheCounterByTheChangeInStock() {
+    // Arrange
+    inventoryReservations.reserve(product.getId(), 2);
+    product.setQuantity(10);
+
+    // Act
+    inventoryReservations.onProductChanged(ProductChangedEvent.saved(productRepository.save(product)));
+
+    // Assert
+    assertEquals(Optional.of(8), inventoryReservations.available(product.getId()));
+  }
+}
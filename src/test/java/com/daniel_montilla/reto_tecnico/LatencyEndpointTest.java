@@ -0,0 +1,93 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.filter.ApiLoggingFilter;
+import com.daniel_montilla.reto_tecnico.service.ApiKeyAuthService;
+import com.daniel_montilla.reto_tecnico.service.ApiLatencyService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LatencyEndpointTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ApiLoggingFilter apiLoggingFilter;
+
+  @Autowired
+  private ApiLatencyService apiLatencyService;
+
+  @MockitoBean
+  private ApiKeyAuthService apiKeyAuthService;
+
+  private final String MOCK_API_KEY = "test-api-key";
+
+  @BeforeEach
+  void setUp() {
+    when(apiKeyAuthService.isApiKeyValid(anyString())).thenReturn(true);
+  }
+
+  @Test
+  void latency_AfterRequests_ShouldListTheirRoutes() throws Exception {
+    // Arrange
+    mockMvc.perform(get("/ping")
+        .header("Authorization", "Bearer " + MOCK_API_KEY))
+        .andExpect(status().isOk());
+
+    // Act & Assert
+    mockMvc.perform(get("/actuator/latency")
+        .header("Authorization", "Bearer " + MOCK_API_KEY))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].uri", hasItem("/ping")))
+        .andExpect(jsonPath("$[?(@.uri == '/ping')].p99").exists());
+  }
+
+  @Test
+  void latency_WithoutApiKey_ShouldBeRejected() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/actuator/latency"))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void latency_WhenTheRequestFails_ShouldStillBeRecorded() {
+    // Arrange
+    long before = countOf("PATCH", "UNKNOWN");
+
+    // Act
+    assertThrows(ServletException.class, () -> apiLoggingFilter.doFilter(
+        new MockHttpServletRequest("PATCH", "/failing"), new MockHttpServletResponse(),
+        (request, response) -> {
+          throw new ServletException("Handler failed");
+        }));
+
+    // Assert
+    assertEquals(before + 1, countOf("PATCH", "UNKNOWN"));
+  }
+
+  private long countOf(String method, String uri) {
+    return apiLatencyService.routes().stream()
+        .filter(route -> route.getMethod().equals(method) && route.getUri().equals(uri))
+        .mapToLong(route -> route.getCount())
+        .sum();
+  }
+}
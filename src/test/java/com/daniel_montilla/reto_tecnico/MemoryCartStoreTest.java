@@ -0,0 +1,129 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.CartItem;
+import com.daniel_montilla.reto_tecnico.entity.Client;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+import com.daniel_montilla.reto_tecnico.repository.ClientRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.CartService;
+import com.daniel_montilla.reto_tecnico.service.MemoryCartStore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = { "cart.engine=memory", "cart.memory.flush-interval-ms=3600000" })
+class MemoryCartStoreTest {
+
+  @Autowired
+  private CartService cartService;
+
+  @Autowired
+  private MemoryCartStore memoryCartStore;
+
+  @Autowired
+  private CartItemRepository cartItemRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private Client client;
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    client = clientRepository.save(Client.builder()
+        .name("Memory Cart Client")
+        .email("memory.cart." + System.nanoTime() + "@example.com")
+        .phone("1234567890")
+        .address("123 Main St")
+        .build());
+
+    product = productRepository.save(Product.builder()
+        .name("Memory Cart Product")
+        .sku("MEMORY-CART-" + System.nanoTime())
+        .description("Kept in a memory cart")
+        .price(10.0)
+        .quantity(100)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    cartItemRepository.deleteAll(cartItemRepository.findAll().stream()
+        .filter(item -> item.getClient().getId().equals(client.getId()))
+        .toList());
+    productRepository.deleteById(product.getId());
+    clientRepository.deleteById(client.getId());
+  }
+
+  @Test
+  void addProductToCart_ShouldStayInMemoryUntilFlushed() {
+    // Act
+    cartService.addProductToCart(client.getId(), product.getId(), 2);
+    CartItem item = cartService.addProductToCart(client.getId(), product.getId(), 3);
+
+    // Assert
+    assertEquals(5, item.getQuantity());
+    assertEquals(5, cartService.getItemsOfClient(client.getId()).get(0).getQuantity());
+    assertTrue(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()).isEmpty());
+
+    memoryCartStore.flush();
+
+    List<CartItem> rows = cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId());
+    assertEquals(1, rows.size());
+    assertEquals(5, rows.get(0).getQuantity());
+  }
+
+  @Test
+  void removeProductFromCart_ShouldDeleteTheRowOnFlush() {
+    // Arrange
+    cartService.addProductToCart(client.getId(), product.getId(), 2);
+    memoryCartStore.flush();
+
+    // Act
+    cartService.removeProductFromCart(client.getId(), product.getId(), 2);
+    memoryCartStore.flush();
+
+    // Assert
+    assertTrue(cartService.getItemsOfClient(client.getId()).isEmpty());
+    assertTrue(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()).isEmpty());
+  }
+
+  @Test
+  void flushForCheckout_ShouldWriteTheCartAndDropItOnceFulfilled() {
+    // Arrange
+    cartService.addProductToCart(client.getId(), product.getId(), 4);
+
+    // Act
+    int ordered = new TransactionTemplate(transactionManager).execute(_ -> {
+      cartService.flushForCheckout(client.getId());
+      List<CartItem> rows = cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId());
+      cartItemRepository.fulfillAllByClientId(client.getId());
+      return rows.get(0).getQuantity();
+    });
+
+    // Assert
+    assertEquals(4, ordered);
+    assertTrue(cartService.getItemsOfClient(client.getId()).isEmpty());
+
+    memoryCartStore.flush();
+    assertTrue(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()).isEmpty());
+  }
+}
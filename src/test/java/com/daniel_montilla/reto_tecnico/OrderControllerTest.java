@@ -26,10 +26,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -97,7 +100,8 @@ class OrderControllerTest {
         anyString(),
         anyString(),
         anyString(),
-        anyString())).thenReturn(createdOrder);
+        anyString(),
+        any())).thenReturn(createdOrder);
 
     // Act & Assert
     mockMvc.perform(post("/order/place")
@@ -117,7 +121,8 @@ class OrderControllerTest {
         anyString(),
         anyString(),
         anyString(),
-        anyString())).thenThrow(new NoItemsInCartException());
+        anyString(),
+        any())).thenThrow(new NoItemsInCartException());
 
     // Act & Assert
     mockMvc.perform(post("/order/place")
@@ -137,7 +142,8 @@ class OrderControllerTest {
         anyString(),
         anyString(),
         anyString(),
-        anyString())).thenThrow(new TokenizationRejectedException());
+        anyString(),
+        any())).thenThrow(new TokenizationRejectedException());
 
     // Act & Assert
     mockMvc.perform(post("/order/place")
@@ -157,7 +163,8 @@ class OrderControllerTest {
         anyString(),
         anyString(),
         anyString(),
-        anyString())).thenThrow(new NotFoundException("client"));
+        anyString(),
+        any())).thenThrow(new NotFoundException("client"));
 
     // Act & Assert
     mockMvc.perform(post("/order/place")
@@ -167,6 +174,73 @@ class OrderControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  void placeOrder_WhenRetriedWithTheSameIdempotencyKey_ShouldReplayTheOrder() throws Exception {
+    // Arrange
+    String idempotencyKey = UUID.randomUUID().toString();
+    Order createdOrder = Order.builder().id(7L).client(testClient).build();
+    when(orderService.placeOrder(
+        any(Long.class),
+        any(),
+        anyString(),
+        anyString(),
+        anyString(),
+        anyString(),
+        any())).thenReturn(createdOrder);
+
+    // Act & Assert
+    for (int attempt = 0; attempt < 2; attempt++) {
+      mockMvc.perform(post("/order/place")
+          .header("Authorization", "Bearer " + MOCK_API_KEY)
+          .header("Idempotency-Key", idempotencyKey)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(objectMapper.writeValueAsString(placeRequest)))
+          .andExpect(status().isCreated())
+          .andExpect(header().string("Location", "http://localhost/order/7"));
+    }
+
+    verify(orderService, times(1)).placeOrder(
+        any(Long.class),
+        any(),
+        anyString(),
+        anyString(),
+        anyString(),
+        anyString(),
+        any());
+  }
+
+  @Test
+  void placeOrder_WhenIdempotencyKeyIsReusedForAnotherRequest_ShouldReturnUnprocessableEntity() throws Exception {
+    // Arrange
+    String idempotencyKey = UUID.randomUUID().toString();
+    Order createdOrder = Order.builder().id(8L).client(testClient).build();
+    when(orderService.placeOrder(
+        any(Long.class),
+        any(),
+        anyString(),
+        anyString(),
+        anyString(),
+        anyString(),
+        any())).thenReturn(createdOrder);
+
+    mockMvc.perform(post("/order/place")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .header("Idempotency-Key", idempotencyKey)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(placeRequest)))
+        .andExpect(status().isCreated());
+
+    placeRequest.setDeliveryAddress("Another address");
+
+    // Act & Assert
+    mockMvc.perform(post("/order/place")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .header("Idempotency-Key", idempotencyKey)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(placeRequest)))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
   // --- GET /order/{clientId} ---
   @Test
   void getClientOrders_WhenOrdersExist_ShouldReturnOrders() throws Exception {
@@ -0,0 +1,124 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.CartItem;
+import com.daniel_montilla.reto_tecnico.entity.Client;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.exception.NoItemsInCartException;
+import com.daniel_montilla.reto_tecnico.repository.CartItemRepository;
+import com.daniel_montilla.reto_tecnico.repository.ClientRepository;
+import com.daniel_montilla.reto_tecnico.repository.CreditCardDetailsRespository;
+import com.daniel_montilla.reto_tecnico.repository.OrderRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.OrderCreationService;
+import com.daniel_montilla.reto_tecnico.service.TokenizationService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "inventory.reservations.reconcile-interval-ms=3600000")
+class OrderCreationServiceTest {
+
+  @Autowired
+  private OrderCreationService orderCreationService;
+
+  @Autowired
+  private OrderRepository orderRepository;
+
+  @Autowired
+  private CartItemRepository cartItemRepository;
+
+  @Autowired
+  private ClientRepository clientRepository;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private CreditCardDetailsRespository creditCardDetailsRespository;
+
+  @MockitoBean
+  private TokenizationService tokenizationService;
+
+  private Client client;
+  private Product product;
+  private String token;
+
+  @BeforeEach
+  void setUp() {
+    client = clientRepository.save(Client.builder()
+        .name("Order Client")
+        .email("order.client." + System.nanoTime() + "@example.com")
+        .phone("1234567890")
+        .address("123 Main St")
+        .build());
+
+    product = productRepository.save(Product.builder()
+        .name("Order Product")
+        .sku("ORDER-" + System.nanoTime())
+        .description("Ordered")
+        .price(10.0)
+        .quantity(100)
+        .build());
+
+    token = "token-" + System.nanoTime();
+  }
+
+  @AfterEach
+  void tearDown() {
+    // Orders own their cart items and drop them with them.
+    orderRepository.deleteAll(orderRepository.findAllByClientId(client.getId()));
+    cartItemRepository.deleteAll(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()));
+    creditCardDetailsRespository.deleteById(token);
+    productRepository.deleteById(product.getId());
+    clientRepository.deleteById(client.getId());
+  }
+
+  @Test
+  void createOrder_ShouldPlaceTheOrderAndFulfillTheCart() throws Exception {
+    // Arrange
+    when(tokenizationService.tokenizeCard(anyString())).thenReturn(token);
+    cartItemRepository.save(CartItem.builder().client(client).product(product).quantity(2).build());
+
+    // Act
+    var result = orderCreationService.createOrder(client.getId(), Optional.empty(), "4111111111111111", "12/30",
+        "123", "Order Client", Optional.empty());
+
+    // Assert
+    assertNotNull(result.order.getId());
+    assertEquals(0, result.order.getTotalPrice().compareTo(BigDecimal.valueOf(20.0)));
+    assertEquals("123 Main St", result.order.getDeliveryAddress());
+    assertEquals(token, result.creditCardDetails.getToken());
+    assertTrue(cartItemRepository.findAllByClientIdAndFulfilledFalse(client.getId()).isEmpty());
+  }
+
+  @Test
+  void createOrder_WhenCartIsEmpty_ShouldFailWithoutWaitingForTokenization() {
+    // Arrange
+    when(tokenizationService.tokenizeCard(anyString())).thenAnswer(_ -> {
+      Thread.sleep(10_000);
+      return token;
+    });
+
+    // Act & Assert
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(NoItemsInCartException.class,
+        () -> orderCreationService.createOrder(client.getId(), Optional.empty(), "4111111111111111", "12/30",
+            "123", "Order Client", Optional.empty())));
+    assertTrue(creditCardDetailsRespository.findById(token).isEmpty());
+  }
+}
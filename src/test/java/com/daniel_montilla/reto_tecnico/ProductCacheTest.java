@@ -0,0 +1,88 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.ProductCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductCacheTest {
+
+  private ProductRepository productRepository;
+  private SimpleMeterRegistry meterRegistry;
+  private ProductCache cache;
+
+  @BeforeEach
+  void setUp() {
+    productRepository = mock(ProductRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new ProductCache(productRepository, meterRegistry, 2);
+    cache.registerGauges();
+  }
+
+  private Product product(Long id, double price) {
+    return Product.builder().id(id).sku("SKU-" + id).name("Product " + id).price(price).quantity(10).build();
+  }
+
+  @Test
+  void get_WithSameId_ShouldOnlyLoadOnce() {
+    // Arrange
+    when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 10.0)));
+
+    // Act
+    cache.get(1L);
+    Optional<Product> cached = cache.get(1L);
+
+    // Assert
+    assertTrue(cached.isPresent());
+    assertEquals("SKU-1", cached.get().getSku());
+    verify(productRepository, times(1)).findById(1L);
+    assertEquals(0.5, meterRegistry.get("product.cache.hit.ratio").gauge().value());
+  }
+
+  @Test
+  void get_AfterProductWrite_ShouldReload() {
+    // Arrange
+    when(productRepository.findById(1L))
+        .thenReturn(Optional.of(product(1L, 10.0)))
+        .thenReturn(Optional.of(product(1L, 12.0)));
+    cache.get(1L);
+
+    // Act
+    cache.onProductChanged(ProductChangedEvent.saved(product(1L, 12.0)));
+    Optional<Product> reloaded = cache.get(1L);
+
+    // Assert
+    assertEquals(12.0, reloaded.get().getPrice());
+    verify(productRepository, times(2)).findById(1L);
+  }
+
+  @Test
+  void getAll_ShouldLoadOnlyMissesInOneQuery() {
+    // Arrange
+    when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 10.0)));
+    when(productRepository.findAllById(any())).thenReturn(List.of(product(2L, 20.0)));
+    cache.get(1L);
+
+    // Act
+    Map<Long, Product> products = cache.getAll(List.of(1L, 2L, 2L));
+
+    // Assert
+    assertEquals(Set.of(1L, 2L), products.keySet());
+    verify(productRepository).findAllById(Set.of(2L));
+    assertEquals(2, cache.size());
+  }
+}
@@ -4,6 +4,7 @@ import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
 import com.daniel_montilla.reto_tecnico.entity.Product;
 import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
 import com.daniel_montilla.reto_tecnico.service.ApiKeyAuthService;
+import com.daniel_montilla.reto_tecnico.service.ProductCursor;
 import com.daniel_montilla.reto_tecnico.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
@@ -19,8 +20,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -62,10 +65,13 @@ class ProductControllerTest {
   @Test
   void getAllProducts_ShouldReturnListOfProducts() throws Exception {
     // Arrange: Create and save two products
-    productRepository.save(Product.builder().sku("SKU001").name("Laptop Pro").description("A powerful laptop")
-        .price(1499.99).quantity(50).build());
-    productRepository.save(Product.builder().sku("SKU002").name("Wireless Mouse").description("An ergonomic mouse")
-        .price(79.99).quantity(200).build());
+    Product p1 = productRepository.save(Product.builder().sku("SKU001").name("Laptop Pro")
+        .description("A powerful laptop").price(1499.99).quantity(50).build());
+    Product p2 = productRepository.save(Product.builder().sku("SKU002").name("Wireless Mouse")
+        .description("An ergonomic mouse").price(79.99).quantity(200).build());
+
+    when(productService.listProducts("name", "asc", null, 50))
+        .thenReturn(new ProductDTO.Page(List.of(p1, p2), null));
 
     // Act & Assert
     mockMvc.perform(get("/products")
@@ -73,7 +79,74 @@ class ProductControllerTest {
         .andExpect(status().isOk())
         .andExpect(content().contentType(MediaType.APPLICATION_JSON))
         .andExpect(jsonPath("$", hasSize(2)))
-        .andExpect(jsonPath("$[0].name", is("Laptop Pro")));
+        .andExpect(jsonPath("$[0].name", is("Laptop Pro")))
+        .andExpect(header().doesNotExist("X-Next-Cursor"));
+  }
+
+  @Test
+  void getAllProducts_WhenMorePagesExist_ShouldReturnNextCursor() throws Exception {
+    // Arrange
+    Product p1 = Product.builder().id(1L).sku("S1").name("Aspirin").price(5.0).quantity(10).build();
+    String next = ProductCursor.of(p1, "price").encode();
+
+    when(productService.listProducts("price", "asc", null, 1))
+        .thenReturn(new ProductDTO.Page(List.of(p1), next));
+
+    // Act & Assert
+    mockMvc.perform(get("/products")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("sortBy", "price")
+        .param("limit", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(header().string("X-Next-Cursor", next))
+        .andExpect(header().string("Link", containsString("cursor=" + next)));
+  }
+
+  @Test
+  void getAllProducts_WithCursorOfAnotherSort_ShouldReturnBadRequest() throws Exception {
+    // Arrange
+    Product p1 = Product.builder().id(1L).sku("S1").name("Aspirin").price(5.0).quantity(10).build();
+    String priceCursor = ProductCursor.of(p1, "price").encode();
+
+    // Act & Assert
+    mockMvc.perform(get("/products")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("sortBy", "name")
+        .param("cursor", priceCursor))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getAllProducts_WithUnsupportedSortColumn_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("sortBy", "description"))
+        .andExpect(status().isBadRequest());
+  }
+
+  // --- GET /products/export ---
+  @Test
+  void exportProducts_ShouldStreamOneJsonObjectPerLine() throws Exception {
+    // Arrange
+    productRepository.save(Product.builder().sku("EXP-001").name("Export One").description("First")
+        .price(1.0).quantity(1).build());
+    productRepository.save(Product.builder().sku("EXP-002").name("Export Two").description("Second")
+        .price(2.0).quantity(2).build());
+
+    // Act
+    String body = mockMvc.perform(get("/products/export")
+        .header("Authorization", "Bearer " + MOCK_API_KEY))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+
+    // Assert
+    String[] lines = body.strip().split("\n");
+    assertEquals(2, lines.length);
+    assertEquals("EXP-001", objectMapper.readTree(lines[0]).get("sku").asText());
+    assertEquals("EXP-002", objectMapper.readTree(lines[1]).get("sku").asText());
   }
 
   // --- GET /products/{id} ---
@@ -100,6 +173,41 @@ class ProductControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  // --- GET /products/sku ---
+  @Test
+  void getProductBySku_ShouldResolveProductsCreatedThroughTheApi() throws Exception {
+    // Arrange
+    mockMvc.perform(post("/products/batch")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(List.of(
+            createRequest("LOOKUP-001", "Lookup One"),
+            createRequest("LOOKUP-002", "Lookup Two")))))
+        .andExpect(status().isCreated());
+
+    // Act & Assert
+    mockMvc.perform(get("/products/sku/LOOKUP-002")
+        .header("Authorization", "Bearer " + MOCK_API_KEY))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name", is("Lookup Two")));
+
+    mockMvc.perform(get("/products/sku")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("skus", "LOOKUP-002", "LOOKUP-404", "LOOKUP-001"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].sku", is("LOOKUP-002")))
+        .andExpect(jsonPath("$[1].sku", is("LOOKUP-001")));
+  }
+
+  @Test
+  void getProductBySku_WhenSkuIsUnknown_ShouldReturnNotFound() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products/sku/UNKNOWN-SKU")
+        .header("Authorization", "Bearer " + MOCK_API_KEY))
+        .andExpect(status().isNotFound());
+  }
+
   // --- POST /products ---
   @Test
   void createProduct_WithValidData_ShouldCreateAndReturnProduct() throws Exception {
@@ -152,6 +260,77 @@ class ProductControllerTest {
         .andExpect(jsonPath("$[1].name", is("Batch Product Two")));
   }
 
+  // --- POST /products/import ---
+  @Test
+  void importProducts_ShouldReportDuplicateSkusWithoutRejectingTheRest() throws Exception {
+    // Arrange
+    productRepository.save(Product.builder().sku("IMP-TAKEN").name("Existing").description("Already there")
+        .price(1.0).quantity(1).build());
+
+    List<ProductDTO.CreateRequest> importRequest = List.of(
+        createRequest("IMP-001", "Imported One"),
+        createRequest("IMP-TAKEN", "Clashes with the database"),
+        createRequest("IMP-002", "Imported Two"),
+        createRequest("IMP-001", "Clashes with the request"));
+
+    // Act & Assert
+    mockMvc.perform(post("/products/import")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(importRequest)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.received", is(4)))
+        .andExpect(jsonPath("$.imported", is(2)))
+        .andExpect(jsonPath("$.failed", is(2)))
+        .andExpect(jsonPath("$.chunks[0].failures[0].sku", is("IMP-TAKEN")))
+        .andExpect(jsonPath("$.chunks[0].failures[1].sku", is("IMP-001")));
+
+    assertEquals(List.of("IMP-001", "IMP-002"),
+        productRepository.findExistingSkus(List.of("IMP-001", "IMP-002")).stream().sorted().toList());
+  }
+
+  // Each import chunk commits on its own, as it would outside of a test.
+  @Test
+  @Transactional(Transactional.TxType.NOT_SUPPORTED)
+  void importProducts_WhenARowBreaksAnotherConstraint_ShouldNotReportItAsADuplicateSku() throws Exception {
+    // Arrange
+    ProductDTO.CreateRequest tooLong = createRequest("IMP-102", "Description too long");
+    tooLong.setDescription("x".repeat(300));
+
+    List<ProductDTO.CreateRequest> importRequest = List.of(
+        createRequest("IMP-101", "Imported One"),
+        tooLong,
+        createRequest("IMP-103", "Imported Three"));
+
+    // Act & Assert
+    mockMvc.perform(post("/products/import")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(importRequest)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported", is(2)))
+        .andExpect(jsonPath("$.failed", is(1)))
+        .andExpect(jsonPath("$.chunks[0].failures[0].sku", is("IMP-102")))
+        .andExpect(jsonPath("$.chunks[0].failures[0].reason", is("Rejected by the database")));
+
+    for (Product imported : productRepository.findAll().stream()
+        .filter(product -> product.getSku().startsWith("IMP-10")).toList()) {
+      mockMvc.perform(delete("/products/" + imported.getId())
+          .header("Authorization", "Bearer " + MOCK_API_KEY))
+          .andExpect(status().isNoContent());
+    }
+  }
+
+  private ProductDTO.CreateRequest createRequest(String sku, String name) {
+    ProductDTO.CreateRequest request = new ProductDTO.CreateRequest();
+    request.setSku(sku);
+    request.setName(name);
+    request.setDescription("Imported product");
+    request.setPrice(10.0);
+    request.setQuantity(10);
+    return request;
+  }
+
   // --- PUT /products/{id} ---
   @Test
   void updateProduct_WhenProductExists_ShouldUpdateAndReturnProduct() throws Exception {
@@ -223,8 +402,8 @@ class ProductControllerTest {
     List<Product> mockResults = Arrays.asList(p1, p2);
 
     // Mock the service call
-    when(productService.searchProducts("Laptop", "price", "desc", 10))
-        .thenReturn(mockResults);
+    when(productService.searchProducts("Laptop", "price", "desc", 10, null, 50))
+        .thenReturn(new ProductDTO.Page(mockResults, null));
 
     // Act & Assert
     mockMvc.perform(get("/products/search")
@@ -238,7 +417,36 @@ class ProductControllerTest {
         .andExpect(jsonPath("$[0].name", is("Gaming Laptop")));
 
     // Verify the service method was called with the correct parameters
-    verify(productService).searchProducts("Laptop", "price", "desc", 10);
+    verify(productService).searchProducts("Laptop", "price", "desc", 10, null, 50);
+  }
+
+  @Test
+  void searchProducts_InFuzzyMode_ShouldCallFuzzySearch() throws Exception {
+    // Arrange
+    Product p1 = Product.builder().id(1L).sku("IBU-400").name("Ibuprofen 400mg").price(5.0).quantity(15).build();
+    when(productService.fuzzySearchProducts("ibuprofn", 0, 10)).thenReturn(List.of(p1));
+
+    // Act & Assert
+    mockMvc.perform(get("/products/search")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("q", "ibuprofn")
+        .param("mode", "fuzzy")
+        .param("limit", "10"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].name", is("Ibuprofen 400mg")));
+
+    verify(productService).fuzzySearchProducts("ibuprofn", 0, 10);
+  }
+
+  @Test
+  void searchProducts_WithUnknownMode_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/products/search")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("q", "laptop")
+        .param("mode", "semantic"))
+        .andExpect(status().isBadRequest());
   }
 
   @Test
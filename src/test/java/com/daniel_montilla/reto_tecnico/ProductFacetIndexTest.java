@@ -0,0 +1,113 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.service.ProductFacetIndex;
+import com.daniel_montilla.reto_tecnico.service.ProductTextIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductFacetIndexTest {
+
+  private ProductTextIndex textIndex;
+  private ProductFacetIndex facetIndex;
+
+  @BeforeEach
+  void setUp() {
+    textIndex = new ProductTextIndex();
+    facetIndex = new ProductFacetIndex(textIndex, new double[] { 10, 50 }, new double[] { 1, 20 });
+
+    ProductChangedEvent event = ProductChangedEvent.saved(List.of(
+        Product.builder().id(1L).name("Ibuprofen 400mg").description("Pain relief").price(5).quantity(0).build(),
+        Product.builder().id(2L).name("Ibuprofen 600mg").description("Pain relief").price(10).quantity(15).build(),
+        Product.builder().id(3L).name("Vitamin C").description("Supplement").price(80).quantity(30).build()));
+    textIndex.onProductChanged(event);
+    facetIndex.onProductChanged(event);
+  }
+
+  private List<Integer> counts(List<ProductDTO.Facets.Bucket> buckets) {
+    return buckets.stream().map(ProductDTO.Facets.Bucket::getCount).toList();
+  }
+
+  @Test
+  void facets_WithoutQuery_ShouldCountWholeCatalog() {
+    // Act
+    ProductDTO.Facets facets = facetIndex.facets(null, 0);
+
+    // Assert
+    assertEquals(3, facets.getTotal());
+    assertEquals(List.of(1, 1, 1), counts(facets.getPrice()));
+    assertEquals(List.of(1, 1, 1), counts(facets.getStock()));
+    assertEquals(50.0, facets.getPrice().get(2).getFrom());
+    assertNull(facets.getPrice().get(2).getTo());
+  }
+
+  @Test
+  void facets_WithQueryAndMinStock_ShouldCountMatchesOnly() {
+    // Act
+    ProductDTO.Facets facets = facetIndex.facets("ibuprofen", 1);
+
+    // Assert
+    assertEquals(1, facets.getTotal());
+    assertEquals(List.of(0, 1, 0), counts(facets.getPrice()));
+    assertEquals(List.of(0, 1, 0), counts(facets.getStock()));
+  }
+
+  @Test
+  void facets_AfterDelete_ShouldDropProduct() {
+    // Act
+    facetIndex.onProductChanged(ProductChangedEvent.deleted(Product.builder().id(1L).build()));
+    ProductDTO.Facets facets = facetIndex.facets(null, 0);
+
+    // Assert
+    assertEquals(2, facets.getTotal());
+    assertEquals(2, facetIndex.size());
+    assertEquals(List.of(0, 1, 1), counts(facets.getPrice()));
+  }
+
+  @Test
+  void facets_WithSeveralTokens_ShouldCountProductsMatchingEveryToken() {
+    // Act
+    ProductDTO.Facets facets = facetIndex.facets("pain 600", 0);
+
+    // Assert
+    assertEquals(1, facets.getTotal());
+    assertEquals(List.of(0, 1, 0), counts(facets.getPrice()));
+  }
+
+  @Test
+  void facets_AfterManyWritesAndDeletes_ShouldCountTheProductsLeft() {
+    // Arrange
+    List<Product> products = new ArrayList<>();
+    for (long id = 100; id < 3100; id++) {
+      products.add(Product.builder().id(id).name("Bandage " + id).description("First aid").price(20).quantity(5)
+          .build());
+    }
+    ProductChangedEvent saved = ProductChangedEvent.saved(products);
+    textIndex.onProductChanged(saved);
+    facetIndex.onProductChanged(saved);
+
+    // Act
+    for (Product product : products) {
+      if (product.getId() % 3 == 0) {
+        ProductChangedEvent deleted = ProductChangedEvent.deleted(product);
+        textIndex.onProductChanged(deleted);
+        facetIndex.onProductChanged(deleted);
+      }
+    }
+    ProductDTO.Facets facets = facetIndex.facets("bandage", 0);
+
+    // Assert
+    assertEquals(2000, facets.getTotal());
+    assertEquals(2003, facetIndex.size());
+    assertEquals(List.of(0, 2000, 0), counts(facets.getPrice()));
+  }
+}
@@ -0,0 +1,83 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.service.ProductSearchCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSearchCacheTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ProductSearchCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new ProductSearchCache(meterRegistry, 2);
+    cache.registerGauges();
+    loads = new AtomicInteger();
+  }
+
+  private ProductSearchCache.Key key(String query) {
+    return new ProductSearchCache.Key("standard", query, "name", "asc", 0, null, 50);
+  }
+
+  private String load(String query) {
+    return cache.get(key(query), () -> query + "#" + loads.incrementAndGet());
+  }
+
+  @Test
+  void get_WithSameKey_ShouldOnlyLoadOnce() {
+    // Act
+    String first = load("laptop");
+    String second = load("laptop");
+
+    // Assert
+    assertEquals(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(1.0, meterRegistry.get("product.search.cache.requests").tag("result", "hit").counter().count());
+    assertEquals(1.0, meterRegistry.get("product.search.cache.requests").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  void get_AfterProductWrite_ShouldReload() {
+    // Arrange
+    load("laptop");
+
+    // Act
+    cache.onProductChanged(ProductChangedEvent.saved(Product.builder().id(1L).build()));
+    String reloaded = load("laptop");
+
+    // Assert
+    assertEquals("laptop#2", reloaded);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_WhenFull_ShouldEvictLeastRecentlyUsed() {
+    // Arrange
+    load("a");
+    load("b");
+    load("a");
+
+    // Act
+    load("c");
+    load("a");
+    load("b");
+
+    // Assert: "b" was the least recently used entry when "c" came in
+    assertEquals(4, loads.get());
+    assertEquals(2, cache.size());
+    assertEquals(2.0, meterRegistry.get("product.search.cache.size").gauge().value());
+    assertEquals(2.0, meterRegistry.get("product.search.cache.evictions").counter().count());
+  }
+}
@@ -1,8 +1,10 @@
 package com.daniel_montilla.reto_tecnico;
 
+import com.daniel_montilla.reto_tecnico.dto.ProductSearchDTO;
 import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
 import com.daniel_montilla.reto_tecnico.service.ApiKeyAuthService;
 import com.daniel_montilla.reto_tecnico.service.ProductSearchService;
+import com.daniel_montilla.reto_tecnico.service.SearchTrends;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -64,7 +66,7 @@ class ProductSearchControllerTest {
     search2.setCreatedAt(LocalDateTime.now().minusHours(1));
 
     List<ProductSearch> recentSearches = Arrays.asList(search1, search2);
-    when(productSearchService.getRecentSearches()).thenReturn(recentSearches);
+    when(productSearchService.getRecentSearches(10)).thenReturn(recentSearches);
 
     // Act & Assert
     mockMvc.perform(get("/product_searches/recent")
@@ -78,7 +80,7 @@ class ProductSearchControllerTest {
   @Test
   void getRecentSearches_WhenNoSearchesExist_ShouldReturnEmptyList() throws Exception {
     // Arrange
-    when(productSearchService.getRecentSearches()).thenReturn(Collections.emptyList());
+    when(productSearchService.getRecentSearches(10)).thenReturn(Collections.emptyList());
 
     // Act & Assert
     mockMvc.perform(get("/product_searches/recent")
@@ -86,4 +88,31 @@ class ProductSearchControllerTest {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(0)));
   }
+
+  @Test
+  void getTrendingSearches_ShouldReturnTopTermsOfTheWindow() throws Exception {
+    // Arrange
+    when(productSearchService.getTrendingSearches(SearchTrends.Window.FIVE_MINUTES, 2)).thenReturn(List.of(
+        new ProductSearchDTO.TrendingTerm("laptop", 12),
+        new ProductSearchDTO.TrendingTerm("mouse", 7)));
+
+    // Act & Assert
+    mockMvc.perform(get("/product_searches/trending")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("window", "5m")
+        .param("limit", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].term", is("laptop")))
+        .andExpect(jsonPath("$[0].count", is(12)));
+  }
+
+  @Test
+  void getTrendingSearches_WithUnknownWindow_ShouldReturnBadRequest() throws Exception {
+    // Act & Assert
+    mockMvc.perform(get("/product_searches/trending")
+        .header("Authorization", "Bearer " + MOCK_API_KEY)
+        .param("window", "7d"))
+        .andExpect(status().isBadRequest());
+  }
 }
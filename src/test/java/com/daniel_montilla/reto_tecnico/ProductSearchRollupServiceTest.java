@@ -0,0 +1,100 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
+import com.daniel_montilla.reto_tecnico.entity.ProductSearchRollup;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRollupRepository;
+import com.daniel_montilla.reto_tecnico.service.ProductSearchRollupService;
+
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Keep the scheduled run out of the way, the test drives the rollup itself.
+@SpringBootTest(properties = "product.search.rollup.interval-ms=3600000")
+@Transactional
+class ProductSearchRollupServiceTest {
+
+  private static final LocalDateTime DAY = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  @Autowired
+  private ProductSearchRollupService rollupService;
+
+  @Autowired
+  private ProductSearchRepository productSearchRepository;
+
+  @Autowired
+  private ProductSearchRollupRepository productSearchRollupRepository;
+
+  @BeforeEach
+  void setUp() {
+    productSearchRollupRepository.deleteAll();
+    productSearchRepository.deleteAll();
+
+    productSearchRepository.save(search("Laptop", DAY.withHour(10).withSecond(10)));
+    productSearchRepository.save(search("  laptop ", DAY.withHour(10).withSecond(50)));
+    productSearchRepository.save(search("Mouse", DAY.withHour(10).withMinute(1).withSecond(30)));
+    productSearchRepository.save(search("laptop", DAY.withHour(11).withMinute(15)));
+  }
+
+  private ProductSearch search(String term, LocalDateTime createdAt) {
+    ProductSearch search = new ProductSearch();
+    search.setSearchTerm(term);
+    search.setSortBy("name");
+    search.setSortOrder("asc");
+    search.setCreatedAt(createdAt);
+    return search;
+  }
+
+  private Map<String, Long> counts(ProductSearchRollup.Granularity granularity) {
+    return productSearchRollupRepository.findAll().stream()
+        .filter(rollup -> rollup.getGranularity() == granularity)
+        .collect(Collectors.toMap(rollup -> rollup.getBucketStart().toLocalTime() + " " + rollup.getSearchTerm(),
+            ProductSearchRollup::getSearches));
+  }
+
+  @Test
+  void rollup_ShouldAggregateNormalizedTermsPerMinuteAndHour() {
+    // Act
+    long rolled = rollupService.rollup(DAY.withHour(11).withMinute(30));
+
+    // Assert
+    assertEquals(4L, rolled);
+    assertEquals(Map.of("10:00 laptop", 2L, "10:01 mouse", 1L, "11:15 laptop", 1L),
+        counts(ProductSearchRollup.Granularity.MINUTE));
+    assertEquals(Map.of("10:00 laptop", 2L, "10:00 mouse", 1L, "11:00 laptop", 1L),
+        counts(ProductSearchRollup.Granularity.HOUR));
+  }
+
+  @Test
+  void rollup_WhenRunAgain_ShouldNotCountSearchesTwice() {
+    // Arrange
+    rollupService.rollup(DAY.withHour(10).withMinute(30));
+
+    // Act
+    long rolled = rollupService.rollup(DAY.withHour(11).withMinute(30));
+
+    // Assert: only the 11:15 search was left, and it lands in its own hour
+    assertEquals(1L, rolled);
+    assertEquals(Map.of("10:00 laptop", 2L, "10:00 mouse", 1L, "11:00 laptop", 1L),
+        counts(ProductSearchRollup.Granularity.HOUR));
+  }
+
+  @Test
+  void rollup_PastRetention_ShouldCompactRawRowsAndKeepHourlyCounts() {
+    // Act
+    rollupService.rollup(DAY.plusDays(2));
+
+    // Assert
+    assertEquals(0, productSearchRepository.count());
+    assertEquals(3, counts(ProductSearchRollup.Granularity.HOUR).size());
+  }
+}
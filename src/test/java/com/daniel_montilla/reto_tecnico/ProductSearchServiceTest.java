@@ -5,15 +5,16 @@ import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
 import com.daniel_montilla.reto_tecnico.service.ProductSearchService;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -26,29 +27,40 @@ class ProductSearchServiceTest {
   @Autowired
   private ProductSearchService productSearchService;
 
+  private static ArgumentMatcher<Iterable<ProductSearch>> containsTerm(String searchTerm) {
+    return batch -> StreamSupport.stream(batch.spliterator(), false)
+        .anyMatch(search -> searchTerm.equals(search.getSearchTerm()));
+  }
+
   @Test
   void logSearch_WithValidSearchTerm_ShouldSaveLog() {
     // Arrange
     String searchTerm = "valid search";
     String sortBy = "price";
     String sortOrder = "desc";
-    org.mockito.ArgumentCaptor<ProductSearch> productSearchCaptor = org.mockito.ArgumentCaptor
-        .forClass(ProductSearch.class);
+    @SuppressWarnings("unchecked")
+    org.mockito.ArgumentCaptor<List<ProductSearch>> batchCaptor = org.mockito.ArgumentCaptor
+        .forClass(List.class);
 
     // Act
     productSearchService.logSearch(searchTerm, sortBy, sortOrder);
 
     // Assert
-    // Verify that the save method was called (with a timeout for the @Async
-    // operation)
-    // and capture the argument.
-    verify(productSearchRepository, timeout(1000)).save(productSearchCaptor.capture());
-    ProductSearch capturedSearch = productSearchCaptor.getValue();
+    // The search is written behind in a batch, wait for the writer to flush it
+    // and capture the batch.
+    verify(productSearchRepository, timeout(3000)).saveAll(argThat(containsTerm(searchTerm)));
+    verify(productSearchRepository, atLeastOnce()).saveAll(batchCaptor.capture());
+    ProductSearch capturedSearch = batchCaptor.getAllValues().stream()
+        .flatMap(List::stream)
+        .filter(search -> searchTerm.equals(search.getSearchTerm()))
+        .findFirst()
+        .orElseThrow();
 
     // Check if the captured object has the correct values
     assertEquals(searchTerm, capturedSearch.getSearchTerm());
     assertEquals(sortBy, capturedSearch.getSortBy());
     assertEquals(sortOrder, capturedSearch.getSortOrder());
+    assertNotNull(capturedSearch.getCreatedAt());
   }
 
   @Test
@@ -57,9 +69,8 @@ class ProductSearchServiceTest {
     productSearchService.logSearch(null, "name", "asc");
 
     // Assert
-    // Verify that the save method was never called, allowing a brief moment for
-    // async logic.
-    verify(productSearchRepository, after(500).never()).save(any(ProductSearch.class));
+    // Verify that nothing was written, allowing the writer one flush interval.
+    verify(productSearchRepository, after(1500).never()).saveAll(any());
   }
 
   @Test
@@ -68,32 +79,21 @@ class ProductSearchServiceTest {
     productSearchService.logSearch("   ", "name", "asc");
 
     // Assert
-    // Verify that the save method was never called, allowing a brief moment for
-    // async logic.
-    verify(productSearchRepository, after(500).never()).save(any(ProductSearch.class));
+    // Verify that nothing was written, allowing the writer one flush interval.
+    verify(productSearchRepository, after(1500).never()).saveAll(any());
   }
 
   @Test
-  void getRecentSearches_ShouldCallRepositoryWithCorrectPaging() {
-    // Arrange
-    ProductSearch search = new ProductSearch();
-    search.setSearchTerm("recent item");
-    List<ProductSearch> expectedSearches = Collections.singletonList(search);
-    org.mockito.ArgumentCaptor<Pageable> pageableCaptor = org.mockito.ArgumentCaptor.forClass(Pageable.class);
-
-    // Mock the repository call to return our expected list
-    when(productSearchRepository.findRecent(any(Pageable.class))).thenReturn(expectedSearches);
-
+  void getRecentSearches_ShouldReturnLatestLoggedSearchesNewestFirst() {
     // Act
-    List<ProductSearch> actualSearches = productSearchService.getRecentSearches();
+    productSearchService.logSearch("older item", "name", "asc");
+    productSearchService.logSearch("recent item", "price", "desc");
+    List<ProductSearch> actualSearches = productSearchService.getRecentSearches(2);
 
     // Assert
-    // Verify the repository method was called and capture the Pageable argument
-    verify(productSearchRepository).findRecent(pageableCaptor.capture());
-    Pageable capturedPageable = pageableCaptor.getValue();
-
-    assertEquals(expectedSearches, actualSearches, "The returned list should match the mocked list.");
-    assertEquals(0, capturedPageable.getPageNumber(), "Page number should be 0.");
-    assertEquals(10, capturedPageable.getPageSize(), "Page size should be 10.");
+    assertEquals(List.of("recent item", "older item"),
+        actualSearches.stream().map(ProductSearch::getSearchTerm).toList());
+    // Let the writer flush both searches, so they do not land in the next test.
+    verify(productSearchRepository, timeout(3000)).saveAll(argThat(containsTerm("recent item")));
   }
 }
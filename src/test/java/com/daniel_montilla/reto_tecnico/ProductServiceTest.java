@@ -0,0 +1,78 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.repository.ProductRepository;
+import com.daniel_montilla.reto_tecnico.service.ProductCursor;
+import com.daniel_montilla.reto_tecnico.service.ProductService;
+
+import jakarta.transaction.Transactional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@Transactional
+class ProductServiceTest {
+
+  @Autowired
+  private ProductService productService;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @BeforeEach
+  void setUp() {
+    productRepository.deleteAll();
+    // Two products share the same price to exercise the id tiebreaker
+    productRepository.save(Product.builder().sku("PG-1").name("Alpha").description("...").price(10.0).quantity(1)
+        .build());
+    productRepository.save(Product.builder().sku("PG-2").name("Bravo").description("...").price(30.0).quantity(2)
+        .build());
+    productRepository.save(Product.builder().sku("PG-3").name("Charlie").description("...").price(20.0).quantity(3)
+        .build());
+    productRepository.save(Product.builder().sku("PG-4").name("Delta").description("...").price(20.0).quantity(4)
+        .build());
+    productRepository.save(Product.builder().sku("PG-5").name("Echo").description("...").price(5.0).quantity(5)
+        .build());
+  }
+
+  @Test
+  void listProducts_FollowingCursors_ShouldVisitEveryProductOnceInOrder() {
+    // Arrange
+    List<String> visited = new ArrayList<>();
+    ProductCursor cursor = null;
+    int pages = 0;
+
+    // Act
+    do {
+      ProductDTO.Page page = productService.listProducts("price", "desc", cursor, 2);
+      page.getItems().forEach(product -> visited.add(product.getSku()));
+      cursor = page.getNext() == null ? null : ProductCursor.decode(page.getNext(), "price");
+      pages++;
+    } while (cursor != null);
+
+    // Assert
+    assertEquals(List.of("PG-2", "PG-4", "PG-3", "PG-1", "PG-5"), visited);
+    assertEquals(3, pages);
+  }
+
+  @Test
+  void listProducts_WhenEverythingFitsInOnePage_ShouldNotReturnCursor() {
+    // Act
+    ProductDTO.Page page = productService.listProducts("name", "asc", null, 10);
+
+    // Assert
+    assertEquals(5, page.getItems().size());
+    assertEquals("Alpha", page.getItems().get(0).getName());
+    assertNull(page.getNext());
+  }
+}
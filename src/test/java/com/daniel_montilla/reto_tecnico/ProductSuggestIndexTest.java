@@ -0,0 +1,69 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductDTO;
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.service.ProductSuggestIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestIndexTest {
+
+  private ProductSuggestIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductSuggestIndex(2);
+    index.onProductChanged(ProductChangedEvent.saved(List.of(
+        Product.builder().id(1L).sku("IBU-400").name("Ibuprofen 400mg").quantity(5).build(),
+        Product.builder().id(2L).sku("IBU-600").name("Ibuprofen 600mg").quantity(50).build(),
+        Product.builder().id(3L).sku("IBU-800").name("Ibuprofen 800mg").quantity(20).build(),
+        Product.builder().id(4L).sku("ACE-500").name("Acetaminofén 500mg").quantity(10).build())));
+  }
+
+  private List<Long> ids(List<ProductDTO.Suggestion> suggestions) {
+    return suggestions.stream().map(ProductDTO.Suggestion::getId).toList();
+  }
+
+  @Test
+  void suggest_ShouldReturnTopKByStock() {
+    // Act
+    List<ProductDTO.Suggestion> suggestions = index.suggest("ibu", 10);
+
+    // Assert
+    assertEquals(List.of(2L, 3L), ids(suggestions));
+  }
+
+  @Test
+  void suggest_ShouldMatchSkuAndWordsInsideTheName() {
+    // Act & Assert
+    assertEquals(List.of(4L), ids(index.suggest("ace-5", 10)));
+    assertEquals(List.of(1L), ids(index.suggest("400", 10)));
+    assertEquals(List.of(4L), ids(index.suggest("ACETAMINOFEN", 10)));
+  }
+
+  @Test
+  void suggest_AfterStockDrops_ShouldPromoteNextProduct() {
+    // Act
+    index.index(Product.builder().id(2L).sku("IBU-600").name("Ibuprofen 600mg").quantity(0).build());
+
+    // Assert
+    assertEquals(List.of(3L, 1L), ids(index.suggest("ibuprofen", 10)));
+  }
+
+  @Test
+  void suggest_AfterDelete_ShouldDropProduct() {
+    // Act
+    index.onProductChanged(ProductChangedEvent.deleted(Product.builder().id(4L).build()));
+
+    // Assert
+    assertTrue(index.suggest("ace", 10).isEmpty());
+    assertEquals(3, index.size());
+  }
+}
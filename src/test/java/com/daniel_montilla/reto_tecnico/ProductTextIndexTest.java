@@ -0,0 +1,73 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.service.ProductTextIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductTextIndexTest {
+
+  private ProductTextIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductTextIndex();
+    index.onProductChanged(ProductChangedEvent.saved(List.of(
+        Product.builder().id(1L).sku("S1").name("Gaming Laptop").description("Fast laptop for games").build(),
+        Product.builder().id(2L).sku("S2").name("Office Laptop").description("Quiet and light").build(),
+        Product.builder().id(3L).sku("S3").name("Acetaminofén 500mg").description("Analgésico").build())));
+  }
+
+  @Test
+  void search_ShouldMatchWordPrefixesInNameAndDescription() {
+    // Act & Assert
+    assertEquals(Set.of(1L, 2L), index.search("lap"));
+    assertEquals(Set.of(1L), index.search("games"));
+  }
+
+  @Test
+  void search_WithSeveralTokens_ShouldIntersectPostings() {
+    // Act
+    Set<Long> result = index.search("office LAPTOP");
+
+    // Assert
+    assertEquals(Set.of(2L), result);
+  }
+
+  @Test
+  void search_ShouldIgnoreCaseAndAccents() {
+    // Act & Assert
+    assertEquals(Set.of(3L), index.search("ACETAMINOFEN"));
+    assertEquals(Set.of(3L), index.search("analgésico"));
+  }
+
+  @Test
+  void search_AfterUpdate_ShouldDropStaleTokens() {
+    // Act
+    index.onProductChanged(ProductChangedEvent.saved(
+        Product.builder().id(1L).sku("S1").name("Gaming Mouse").description("Precise mouse").build()));
+
+    // Assert
+    assertEquals(Set.of(2L), index.search("laptop"));
+    assertEquals(Set.of(1L), index.search("mouse"));
+  }
+
+  @Test
+  void search_AfterDelete_ShouldNotReturnProduct() {
+    // Act
+    index.onProductChanged(ProductChangedEvent.deleted(Product.builder().id(2L).build()));
+
+    // Assert
+    assertEquals(Set.of(1L), index.search("laptop"));
+    assertTrue(index.search("office").isEmpty());
+    assertEquals(2, index.size());
+  }
+}
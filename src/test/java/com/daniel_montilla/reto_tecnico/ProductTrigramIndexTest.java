@@ -0,0 +1,70 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.Product;
+import com.daniel_montilla.reto_tecnico.event.ProductChangedEvent;
+import com.daniel_montilla.reto_tecnico.service.ProductTrigramIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductTrigramIndexTest {
+
+  private ProductTrigramIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductTrigramIndex();
+    index.onProductChanged(ProductChangedEvent.saved(List.of(
+        Product.builder().id(1L).sku("IBU-400").name("Ibuprofen 400mg").build(),
+        Product.builder().id(2L).sku("ACE-500").name("Acetaminophen 500mg").build(),
+        Product.builder().id(3L).sku("VIT-C").name("Vitamin C").build())));
+  }
+
+  @Test
+  void search_WithMisspelledName_ShouldFindProduct() {
+    // Act
+    List<ProductTrigramIndex.Match> matches = index.search("ibuprofn", 5);
+
+    // Assert
+    assertEquals(1L, matches.get(0).productId());
+  }
+
+  @Test
+  void search_ShouldMatchSku() {
+    // Act
+    List<ProductTrigramIndex.Match> matches = index.search("ace500", 5);
+
+    // Assert
+    assertEquals(2L, matches.get(0).productId());
+  }
+
+  @Test
+  void search_ShouldReturnAtMostLimitMatchesMostSimilarFirst() {
+    // Act
+    List<ProductTrigramIndex.Match> matches = index.search("500mg acetaminophen", 1);
+
+    // Assert
+    assertEquals(1, matches.size());
+    assertEquals(2L, matches.get(0).productId());
+  }
+
+  @Test
+  void search_WithUnrelatedTerm_ShouldReturnNothing() {
+    // Act & Assert
+    assertTrue(index.search("shampoo", 5).isEmpty());
+  }
+
+  @Test
+  void search_AfterDelete_ShouldNotReturnProduct() {
+    // Act
+    index.onProductChanged(ProductChangedEvent.deleted(Product.builder().id(1L).build()));
+
+    // Assert
+    assertTrue(index.search("ibuprofen", 5).isEmpty());
+  }
+}
@@ -0,0 +1,63 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.entity.ProductSearch;
+import com.daniel_montilla.reto_tecnico.repository.ProductSearchRepository;
+import com.daniel_montilla.reto_tecnico.service.RecentSearches;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RecentSearchesTest {
+
+  private ProductSearchRepository productSearchRepository;
+  private RecentSearches recentSearches;
+
+  @BeforeEach
+  void setUp() {
+    productSearchRepository = mock(ProductSearchRepository.class);
+    recentSearches = new RecentSearches(productSearchRepository, 3);
+  }
+
+  private ProductSearch search(String term) {
+    ProductSearch search = new ProductSearch();
+    search.setSearchTerm(term);
+    return search;
+  }
+
+  private List<String> terms(List<ProductSearch> searches) {
+    return searches.stream().map(ProductSearch::getSearchTerm).toList();
+  }
+
+  @Test
+  void latest_AfterWrapAround_ShouldKeepOnlyNewestSearches() {
+    // Act
+    for (String term : List.of("a", "b", "c", "d", "e")) {
+      recentSearches.append(search(term));
+    }
+
+    // Assert
+    assertEquals(List.of("e", "d", "c"), terms(recentSearches.latest(10)));
+    assertEquals(List.of("e", "d"), terms(recentSearches.latest(2)));
+  }
+
+  @Test
+  void start_ShouldSeedFromDatabaseInOrder() {
+    // Arrange: the repository returns the newest search first
+    when(productSearchRepository.findRecent(any(Pageable.class)))
+        .thenReturn(List.of(search("stored 2"), search("stored 1")));
+
+    // Act
+    recentSearches.start();
+    recentSearches.append(search("live"));
+
+    // Assert
+    assertEquals(List.of("live", "stored 2", "stored 1"), terms(recentSearches.latest(3)));
+  }
+}
@@ -0,0 +1,78 @@
+package com.daniel_montilla.reto_tecnico;
+
+import com.daniel_montilla.reto_tecnico.dto.ProductSearchDTO;
+import com.daniel_montilla.reto_tecnico.service.SearchTrends;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchTrendsTest {
+
+  private static final long NOW = Duration.ofDays(100).toMillis();
+
+  private SearchTrends trends;
+
+  @BeforeEach
+  void setUp() {
+    trends = new SearchTrends(3);
+  }
+
+  private void record(String term, int times, long at) {
+    for (int i = 0; i < times; i++) {
+      trends.record(term, at);
+    }
+  }
+
+  private List<String> terms(List<ProductSearchDTO.TrendingTerm> top) {
+    return top.stream().map(ProductSearchDTO.TrendingTerm::getTerm).toList();
+  }
+
+  @Test
+  void top_ShouldRankNormalizedTermsByCount() {
+    // Arrange
+    record("Laptop", 3, NOW);
+    record("  laptop ", 2, NOW);
+    record("Mouse", 4, NOW);
+
+    // Act
+    List<ProductSearchDTO.TrendingTerm> top = trends.top(SearchTrends.Window.FIVE_MINUTES, 10, NOW);
+
+    // Assert
+    assertEquals(List.of("laptop", "mouse"), terms(top));
+    assertEquals(5, top.get(0).getCount());
+  }
+
+  @Test
+  void top_ShouldOnlyCountSearchesInsideTheWindow() {
+    // Arrange
+    record("keyboard", 5, NOW - Duration.ofMinutes(30).toMillis());
+    record("mouse", 1, NOW);
+
+    // Act & Assert
+    assertEquals(List.of("mouse"), terms(trends.top(SearchTrends.Window.FIVE_MINUTES, 10, NOW)));
+    assertEquals(List.of("keyboard", "mouse"), terms(trends.top(SearchTrends.Window.ONE_HOUR, 10, NOW)));
+  }
+
+  @Test
+  void top_WhenSummaryIsFull_ShouldKeepHeavyHitters() {
+    // Arrange
+    record("laptop", 30, NOW);
+    for (int i = 0; i < 50; i++) {
+      trends.record("rare term " + i, NOW);
+    }
+
+    // Act
+    List<ProductSearchDTO.TrendingTerm> top = trends.top(SearchTrends.Window.ONE_DAY, 10, NOW);
+
+    // Assert
+    assertEquals(3, top.size());
+    assertEquals("laptop", top.get(0).getTerm());
+    assertTrue(top.get(0).getCount() >= 30);
+  }
+}